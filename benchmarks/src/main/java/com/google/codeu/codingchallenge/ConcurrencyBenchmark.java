@@ -0,0 +1,62 @@
+// Copyright 2017 Google Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//    http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.codeu.codingchallenge;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * purpose of this class is to show how parsing throughput grows with the number of threads sharing one MyJSONParser.
+ * Every benchmark thread parses the same document with the same parser; run it with -t 1, -t 2 and so on up to the
+ * number of processors and compare the scores, which are documents per second for all threads together.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConcurrencyBenchmark {
+  private final String document = document(50);
+  private final JSONParser parser = new MyJSONParser();
+
+  @Benchmark
+  public Object parseShared() throws IOException {
+    return parser.parse(document).getString("k0");
+  }
+
+  /**
+   * helper method to create a document with the given number of string values and a nested object
+   * @param values int
+   * @return String
+   */
+  static String document(int values) {
+    StringBuilder builder = new StringBuilder("{ ");
+    for (int i = 0; i < values; i++) {
+      builder.append("\"k").append(i).append("\":\"value ").append(i).append("\", ");
+    }
+    return builder.append("\"name\":{ \"first\":\"sam\", \"last\":\"doe\" } }").toString();
+  }
+}
@@ -0,0 +1,108 @@
+// Copyright 2017 Google Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//    http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.codeu.codingchallenge;
+
+import java.util.Random;
+
+/**
+ * purpose of this class is to generate the documents the benchmarks parse. Every document is made from a seed with
+ * java.util.Random, whose sequence is fixed by its specification, so the same shape and seed give the same document on
+ * every machine and every run.
+ */
+final class Corpus {
+  //Shapes of document
+  static final String FLAT = "flat";        //One wide object of short keys and values
+  static final String DEEP = "deep";        //Objects nested hundreds of levels deep
+  static final String LONG = "long";        //A few very long values
+  static final String ESCAPES = "escapes";  //Values full of escapes
+
+  //Roughly how many characters every document has, so shapes can be compared with each other
+  static final int SIZE = 64 * 1024;
+
+  private static final String LETTERS = "abcdefghijklmnopqrstuvwxyz0123456789 ";
+  private static final String[] ESCAPED = { "\\\\", "\\\"", "\\n", "\\t" };
+
+  private Corpus() {
+  }
+
+  /**
+   * purpose of this method is to generate a document of the given shape from the given seed
+   * @param shape String one of FLAT, DEEP, LONG and ESCAPES
+   * @param seed long
+   * @return String
+   */
+  static String document(String shape, long seed) {
+    Random random = new Random(seed);
+    StringBuilder builder = new StringBuilder(SIZE + 1024).append('{');
+    if (DEEP.equals(shape)) {
+      //Stay well inside MyJSONParser.DEFAULT_MAX_DEPTH
+      int depth = 0;
+      while (builder.length() < SIZE && depth < 500) {
+        pair(builder, random, 4, 8, false).append(", \"o").append(depth).append("\":{");
+        depth = depth + 1;
+      }
+      for (; depth >= 0; depth--) {
+        builder.append('}');
+      }
+      return builder.toString();
+    }
+
+    boolean first = true;
+    while (builder.length() < SIZE) {
+      if (!first) {
+        builder.append(", ");
+      }
+      first = false;
+      if (FLAT.equals(shape)) {
+        pair(builder, random, 4, 12, false);
+      }
+      else if (LONG.equals(shape)) {
+        pair(builder, random, 4096, 16384, false);
+      }
+      else if (ESCAPES.equals(shape)) {
+        pair(builder, random, 8, 32, true);
+      }
+      else {
+        throw new IllegalArgumentException("Unknown shape " + shape);
+      }
+    }
+    return builder.append('}').toString();
+  }
+
+  /**
+   * helper method to append a key value pair whose value has between minLength and maxLength characters
+   * @param builder StringBuilder
+   * @param random Random
+   * @param minLength int
+   * @param maxLength int
+   * @param escapes boolean true to make about one in four characters of the value an escape
+   * @return StringBuilder builder
+   */
+  private static StringBuilder pair(StringBuilder builder, Random random, int minLength, int maxLength,
+      boolean escapes) {
+    builder.append("\"k").append(Integer.toString(random.nextInt(1 << 20), 36)).append("\":\"");
+    int length = minLength + random.nextInt(maxLength - minLength + 1);
+    for (int i = 0; i < length; i++) {
+      if (escapes && random.nextInt(4) == 0) {
+        builder.append(ESCAPED[random.nextInt(ESCAPED.length)]);
+      }
+      else {
+        builder.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+      }
+    }
+    return builder.append('"');
+  }
+}
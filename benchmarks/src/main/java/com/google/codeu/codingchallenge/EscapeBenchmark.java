@@ -0,0 +1,74 @@
+// Copyright 2017 Google Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//    http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.codeu.codingchallenge;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * purpose of this class is to compare parsing a document whose values contain no escapes with parsing one of the same
+ * size where every value does, for a String and for UTF-8 bytes. Values without escapes are cut straight out of the
+ * input, the others go through a decode buffer first.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EscapeBenchmark {
+  private static final int VALUES = 10000;
+
+  @Param({ "plain", "escaped" })
+  public String payload;
+
+  private final MyJSONParser parser = new MyJSONParser();
+  private String document;
+  private byte[] bytes;
+
+  @Setup
+  public void setUp() {
+    String value = "plain".equals(payload) ? "value xx" : "va\\\\ue\\n\\t";
+    StringBuilder builder = new StringBuilder("{ ");
+    for (int i = 0; i < VALUES; i++) {
+      builder.append("\"k").append(i).append("\":\"").append(value).append("\", ");
+    }
+    document = builder.append("\"end\":\"\" }").toString();
+    bytes = document.getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Benchmark
+  public Object parseString() throws IOException {
+    return parser.parse(document);
+  }
+
+  @Benchmark
+  public Object parseBytes() throws IOException {
+    return parser.parse(bytes, 0, bytes.length);
+  }
+}
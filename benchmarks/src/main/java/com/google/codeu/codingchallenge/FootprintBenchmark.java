@@ -0,0 +1,119 @@
+// Copyright 2017 Google Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//    http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.codeu.codingchallenge;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * purpose of this class is to measure how much heap a parsed object takes up with each JSON implementation. Every
+ * iteration parses the same small document many times and keeps all results alive; when it ends, the growth of the
+ * used heap divided by the number of objects created is printed as bytes/object. The time score only says how long
+ * the parsing took. The fork runs with a fixed heap so the numbers are stable.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+public class FootprintBenchmark {
+  private static final int DOCUMENTS = 100000;
+
+  //One outer object holding five strings and one nested object holding two, the shape most of our objects have
+  private static final String DOCUMENT =
+      "{ \"id\":\"1234\", \"type\":\"user\", \"state\":\"active\", \"region\":\"eu\", \"owner\":\"sam\", " +
+      "\"name\":{ \"first\":\"sam\", \"last\":\"doe\" } }";
+  private static final int OBJECTS_PER_DOCUMENT = 2;
+
+  @Param({ "MyJSON", "CompactJSON" })
+  public String json;
+
+  private JSONParser parser;
+  private String[] documents;
+  private JSON[] parsed;
+  private long before;
+
+  @Setup(Level.Iteration)
+  public void setUp() {
+    parser = "MyJSON".equals(json) ? new MyJSONParser() : new MyJSONParser(MyJSONParser.DEFAULT_MAX_DEPTH,
+        new JSONFactory() {
+          @Override
+          public JSON object() {
+            return new CompactJSON();
+          }
+
+          @Override
+          public JSONParser parser() {
+            return new MyJSONParser(MyJSONParser.DEFAULT_MAX_DEPTH, this);
+          }
+        });
+
+    //Every copy gets its own key and value strings, as it would when read from the network
+    documents = new String[DOCUMENTS];
+    for (int i = 0; i < DOCUMENTS; i++) {
+      documents[i] = new String(DOCUMENT.toCharArray());
+    }
+    parsed = new JSON[DOCUMENTS];
+    before = usedHeap();
+  }
+
+  @Benchmark
+  public Object parseAndKeep() throws IOException {
+    for (int i = 0; i < DOCUMENTS; i++) {
+      parsed[i] = parser.parse(documents[i]);
+    }
+    return parsed;
+  }
+
+  @TearDown(Level.Iteration)
+  public void tearDown() {
+    //The keys and values are counted too, but they are the same for every implementation so the difference between
+    //two lines is the difference in the cost of the objects themselves
+    long after = usedHeap();
+    System.out.format("%s: %d bytes/object%n", json, (after - before) / ((long) DOCUMENTS * OBJECTS_PER_DOCUMENT));
+    if (parsed[DOCUMENTS - 1].getObject("name") == null) {
+      throw new IllegalStateException();
+    }
+    parsed = null;
+    documents = null;
+  }
+
+  /**
+   * helper method to get the heap in use after garbage collection has had a chance to run
+   * @return long
+   */
+  private static long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 4; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
@@ -0,0 +1,115 @@
+// Copyright 2017 Google Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//    http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.codeu.codingchallenge;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * purpose of this class is to measure reading, writing and listing the keys of an object, for MyJSON and for
+ * CompactJSON, with few and with many keys. Keys are looked up in an order drawn from the seed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ObjectModelBenchmark {
+  private static final int LOOKUPS = 1024;
+
+  @Param({ "MyJSON", "CompactJSON" })
+  public String type;
+
+  @Param({ "4", "64", "1024" })
+  public int size;
+
+  @Param({ "1" })
+  public long seed;
+
+  private JSON object;
+  private String[] all;
+  private String[] names;
+  private final List<String> keys = new ArrayList<>();
+  private int next;
+
+  @Setup
+  public void setUp() {
+    object = create();
+    all = new String[size];
+    for (int i = 0; i < size; i++) {
+      all[i] = "key" + i;
+      object.setString(all[i], "value" + i);
+    }
+
+    //Copies of the keys, so lookups cannot succeed by comparing references
+    Random random = new Random(seed);
+    names = new String[LOOKUPS];
+    for (int i = 0; i < LOOKUPS; i++) {
+      names[i] = new String(all[random.nextInt(size)]);
+    }
+  }
+
+  @Benchmark
+  public Object getString() {
+    next = (next + 1) & (LOOKUPS - 1);
+    return object.getString(names[next]);
+  }
+
+  @Benchmark
+  public Object setString() {
+    next = (next + 1) & (LOOKUPS - 1);
+    return object.setString(names[next], "changed");
+  }
+
+  @Benchmark
+  public int getStrings() {
+    keys.clear();
+    object.getStrings(keys);
+    return keys.size();
+  }
+
+  @Benchmark
+  public Object build() {
+    JSON built = create();
+    for (int i = 0; i < size; i++) {
+      built.setString(all[i], "value");
+    }
+    return built;
+  }
+
+  /**
+   * helper method to create an empty object of the type being measured
+   * @return JSON
+   */
+  private JSON create() {
+    return "CompactJSON".equals(type) ? new CompactJSON() : new MyJSON();
+  }
+}
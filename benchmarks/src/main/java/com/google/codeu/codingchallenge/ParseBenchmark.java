@@ -0,0 +1,103 @@
+// Copyright 2017 Google Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//    http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.codeu.codingchallenge;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * purpose of this class is to measure how many documents of each shape the parsers get through per second, from each
+ * kind of input. Run with -prof gc to see how much each parse allocates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+  @Param({ Corpus.FLAT, Corpus.DEEP, Corpus.LONG, Corpus.ESCAPES })
+  public String shape;
+
+  @Param({ "1" })
+  public long seed;
+
+  private String text;
+  private byte[] bytes;
+  private final MyJSONParser parser = new MyJSONParser();
+  private final MyJSONParser compactParser = new MyJSONParser(MyJSONParser.DEFAULT_MAX_DEPTH, new JSONFactory() {
+    @Override
+    public JSON object() {
+      return new CompactJSON();
+    }
+
+    @Override
+    public JSONParser parser() {
+      return compactParser;
+    }
+  });
+  private final LazyJSONParser lazyParser = new LazyJSONParser();
+
+  @Setup
+  public void setUp() {
+    text = Corpus.document(shape, seed);
+    bytes = text.getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Benchmark
+  public Object parseString() throws IOException {
+    return parser.parse(text);
+  }
+
+  @Benchmark
+  public Object parseBytes() throws IOException {
+    return parser.parse(bytes, 0, bytes.length);
+  }
+
+  @Benchmark
+  public Object parseReader() throws IOException {
+    return parser.parse(new StringReader(text));
+  }
+
+  @Benchmark
+  public Object parseCompact() throws IOException {
+    return compactParser.parse(text);
+  }
+
+  @Benchmark
+  public Object parseLazy() throws IOException {
+    return lazyParser.parse(text);
+  }
+
+  @Benchmark
+  public Object validate() {
+    return parser.validate(text);
+  }
+}
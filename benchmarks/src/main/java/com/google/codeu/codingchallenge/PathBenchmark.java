@@ -0,0 +1,75 @@
+// Copyright 2017 Google Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//    http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.codeu.codingchallenge;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * purpose of this class is to compare picking one nested value out of a document with a compiled path while it is
+ * read against parsing the whole document first. The value sits after a large object of each shape that is not on
+ * the path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathBenchmark {
+  @Param({ Corpus.FLAT, Corpus.DEEP, Corpus.LONG, Corpus.ESCAPES })
+  public String shape;
+
+  @Param({ "1" })
+  public long seed;
+
+  private final JSONPath path = JSONPath.compile("user.name.first");
+  private final MyJSONParser parser = new MyJSONParser();
+  private String text;
+  private JSON tree;
+
+  @Setup
+  public void setUp() throws IOException {
+    text = "{ \"data\":" + Corpus.document(shape, seed) + ", \"user\":{ \"name\":{ \"first\":\"sam\" } } }";
+    tree = parser.parse(text);
+  }
+
+  @Benchmark
+  public Object readWhileParsing() throws IOException {
+    return path.readString(parser.cursor(text));
+  }
+
+  @Benchmark
+  public Object parseThenGet() throws IOException {
+    return path.getString(parser.parse(text));
+  }
+
+  @Benchmark
+  public Object getFromTree() {
+    return path.getString(tree);
+  }
+}
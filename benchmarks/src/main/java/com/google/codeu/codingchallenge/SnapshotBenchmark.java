@@ -0,0 +1,143 @@
+// Copyright 2017 Google Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//    http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.codeu.codingchallenge;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * purpose of this class is to compare reloading a document of each shape from a binary snapshot against parsing its
+ * text, from memory and from a file. mapSnapshotFile only maps and checks the snapshot, which is what opening it
+ * costs; mapAndWalkSnapshotFile also reads every key and value, which is what compares with parsing. The sizes of
+ * both forms are printed when the benchmark is set up.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnapshotBenchmark {
+  @Param({ Corpus.FLAT, Corpus.DEEP, Corpus.LONG, Corpus.ESCAPES })
+  public String shape;
+
+  @Param({ "1" })
+  public long seed;
+
+  private final MyJSONParser parser = new MyJSONParser();
+  private final BinaryCodec codec = new BinaryCodec();
+  private String text;
+  private ByteBuffer snapshot;
+  private Path textFile;
+  private Path snapshotFile;
+
+  @Setup
+  public void setUp() throws IOException {
+    text = Corpus.document(shape, seed);
+    snapshot = codec.encode(parser.parse(text));
+
+    textFile = Files.createTempFile("snapshot", ".json");
+    Files.write(textFile, text.getBytes(StandardCharsets.UTF_8));
+    snapshotFile = Files.createTempFile("snapshot", ".bin");
+    try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.WRITE)) {
+      codec.write(parser.parse(text), channel);
+    }
+    System.out.format("%s: text %d bytes, snapshot %d bytes%n", shape, Files.size(textFile), snapshot.remaining());
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    Files.delete(textFile);
+    Files.delete(snapshotFile);
+  }
+
+  @Benchmark
+  public Object parseText() throws IOException {
+    return parser.parse(text);
+  }
+
+  @Benchmark
+  public Object decodeSnapshot() throws IOException {
+    return codec.decode(snapshot.duplicate());
+  }
+
+  @Benchmark
+  public Object parseTextFile() throws IOException {
+    return parser.parseFile(textFile);
+  }
+
+  @Benchmark
+  public Object readSnapshotFile() throws IOException {
+    try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+      return codec.read(channel);
+    }
+  }
+
+  @Benchmark
+  public Object mapSnapshotFile() throws IOException {
+    try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+      return codec.map(channel);
+    }
+  }
+
+  @Benchmark
+  public long mapAndWalkSnapshotFile() throws IOException {
+    try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+      Counter counter = new Counter();
+      JSONWalker.walk(codec.map(channel), counter);
+      return counter.count;
+    }
+  }
+
+  /**
+   * purpose of this class is to read every key and value of a walked tree, so a lazy tree is fully decoded
+   */
+  private static final class Counter implements JSONHandler {
+    private long count;
+
+    @Override
+    public void startObject(String key) {
+      count = count + 1;
+    }
+
+    @Override
+    public void endObject() {
+    }
+
+    @Override
+    public void stringValue(String key, CharSequence value) {
+      count = count + key.length() + value.length();
+    }
+  }
+}
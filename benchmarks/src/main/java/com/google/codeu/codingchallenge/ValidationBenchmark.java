@@ -0,0 +1,67 @@
+// Copyright 2017 Google Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//    http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.codeu.codingchallenge;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * purpose of this class is to compare how long it takes to only check a document with validate against parsing it
+ * into JSON objects, for a String and for UTF-8 bytes
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidationBenchmark {
+  private static final int VALUES = 10000;
+
+  private final MyJSONParser parser = new MyJSONParser();
+  private final String document = ConcurrencyBenchmark.document(VALUES);
+  private final byte[] bytes = document.getBytes(StandardCharsets.UTF_8);
+
+  @Benchmark
+  public Object parseString() throws IOException {
+    return parser.parse(document);
+  }
+
+  @Benchmark
+  public Object parseBytes() throws IOException {
+    return parser.parse(bytes, 0, bytes.length);
+  }
+
+  @Benchmark
+  public boolean validateString() {
+    return parser.validate(document).isValid();
+  }
+
+  @Benchmark
+  public boolean validateBytes() {
+    return parser.validate(bytes).isValid();
+  }
+}
@@ -0,0 +1,83 @@
+// Copyright 2017 Google Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//    http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.codeu.codingchallenge;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * purpose of this class is to measure how many parsed documents of each shape JSONWriter writes per second, as text
+ * and as UTF-8 bytes
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WriterBenchmark {
+  @Param({ Corpus.FLAT, Corpus.DEEP, Corpus.LONG, Corpus.ESCAPES })
+  public String shape;
+
+  @Param({ "1" })
+  public long seed;
+
+  private JSON object;
+  private final JSONWriter compact = new JSONWriter();
+  private final JSONWriter pretty = new JSONWriter(2);
+  private final StringBuilder text = new StringBuilder();
+  private ByteBuffer bytes;
+
+  @Setup
+  public void setUp() throws IOException {
+    object = new MyJSONParser().parse(Corpus.document(shape, seed));
+    bytes = ByteBuffer.allocateDirect(Corpus.SIZE * 4);
+  }
+
+  @Benchmark
+  public int writeCompact() throws IOException {
+    text.setLength(0);
+    compact.write(object, text);
+    return text.length();
+  }
+
+  @Benchmark
+  public int writePretty() throws IOException {
+    text.setLength(0);
+    pretty.write(object, text);
+    return text.length();
+  }
+
+  @Benchmark
+  public int writeBytes() {
+    bytes.clear();
+    compact.write(object, bytes);
+    return bytes.position();
+  }
+}
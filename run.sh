@@ -14,4 +14,5 @@
 # See the License for the specific language governing permissions and
 # limitations under the License.
 
-java -cp bin com.google.codeu.codingchallenge.TestMain
+# Builds the parser and runs TestMain
+mvn -B -q -pl core test
@@ -48,4 +48,24 @@ final class Asserts {
       throw new AssertException(String.format("%s does not equal %s", a, b));
     }
   }
+
+  public static void isSameJSON(JSON a, JSON b) {
+    final Collection<String> strings = new HashSet<>();
+    final Collection<String> otherStrings = new HashSet<>();
+    a.getStrings(strings);
+    b.getStrings(otherStrings);
+    isEqual(strings, otherStrings);
+    for (final String name : strings) {
+      isEqual(a.getString(name), b.getString(name));
+    }
+
+    final Collection<String> objects = new HashSet<>();
+    final Collection<String> otherObjects = new HashSet<>();
+    a.getObjects(objects);
+    b.getObjects(otherObjects);
+    isEqual(objects, otherObjects);
+    for (final String name : objects) {
+      isSameJSON(a.getObject(name), b.getObject(name));
+    }
+  }
 }
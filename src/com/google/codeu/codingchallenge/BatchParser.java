@@ -0,0 +1,140 @@
+// Copyright 2017 Google Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//    http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.codeu.codingchallenge;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * purpose of this class is to parse many documents at once. The documents are split into chunks that are parsed in
+ * parallel on an executor, all with the same parser, which is why the parser has to be safe to share between threads
+ * the way MyJSONParser is. Every document gets its own ParseResult, in the order the documents were given, so one bad
+ * document does not stop the others from being parsed.
+ */
+final class BatchParser {
+  //Chunks are never smaller than this, so scheduling costs little next to parsing
+  static final int MIN_CHUNK_SIZE = 16;
+
+  //Pool used when no executor is given. Created on first use; its threads are daemons
+  private static ForkJoinPool defaultPool;
+
+  private final JSONParser parser;
+  private final Executor executor;
+  private final int parallelism;
+
+  /**
+   * Creates a batch parser that parses on a ForkJoinPool with one thread per available processor
+   * @param parser JSONParser that is safe to use from several threads at once
+   */
+  BatchParser(JSONParser parser) {
+    this(parser, defaultPool(), Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Creates a batch parser that parses on the given executor
+   * @param parser JSONParser that is safe to use from several threads at once
+   * @param executor Executor
+   * @param parallelism int how many threads the executor runs tasks on, used to decide how to split a batch
+   */
+  BatchParser(JSONParser parser, Executor executor, int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("parallelism must be at least 1");
+    }
+    this.parser = parser;
+    this.executor = executor;
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * purpose of this method is to parse every document of the list and wait until they have all been parsed
+   * @param documents List<String>
+   * @return List<ParseResult> one result for each document, in the same order
+   * @throws InterruptedException if the calling thread is interrupted while waiting
+   * @throws RuntimeException or Error, whatever a chunk threw that parse does not turn into a result, after all chunks
+   * are done
+   */
+  List<ParseResult> parseAll(final List<String> documents) throws InterruptedException {
+    final ParseResult[] results = new ParseResult[documents.size()];
+    int chunkSize = Math.max(MIN_CHUNK_SIZE, (documents.size() + parallelism * 4 - 1) / (parallelism * 4));
+    int chunks = (documents.size() + chunkSize - 1) / chunkSize;
+    final CountDownLatch done = new CountDownLatch(chunks);
+    final Throwable[] failure = new Throwable[1];
+
+    for (int start = 0; start < documents.size(); start = start + chunkSize) {
+      final int from = start;
+      final int to = Math.min(start + chunkSize, documents.size());
+      executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            for (int i = from; i < to; i++) {
+              results[i] = parse(documents.get(i));
+            }
+          } catch (Throwable ex) {
+            //Errors such as OutOfMemoryError are kept too, so a chunk never ends up silently unparsed
+            synchronized (failure) {
+              failure[0] = ex;
+            }
+          } finally {
+            done.countDown();
+          }
+        }
+      });
+    }
+
+    done.await();
+    synchronized (failure) {
+      if (failure[0] instanceof RuntimeException) {
+        throw (RuntimeException) failure[0];
+      }
+      if (failure[0] instanceof Error) {
+        throw (Error) failure[0];
+      }
+      if (failure[0] != null) {
+        throw new IllegalStateException("parsing a chunk failed", failure[0]);
+      }
+    }
+    return new ArrayList<>(Arrays.asList(results));
+  }
+
+  /**
+   * helper method to parse a single document, turning a failure into a result
+   * @param document String
+   * @return ParseResult
+   */
+  private ParseResult parse(String document) {
+    try {
+      return ParseResult.success(parser.parse(document));
+    } catch (IOException ex) {
+      return ParseResult.failure(ex);
+    }
+  }
+
+  /**
+   * @return ForkJoinPool the pool shared by batch parsers that were not given an executor
+   */
+  private static synchronized ForkJoinPool defaultPool() {
+    if (defaultPool == null) {
+      defaultPool = new ForkJoinPool();
+    }
+    return defaultPool;
+  }
+}
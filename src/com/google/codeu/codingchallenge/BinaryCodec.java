@@ -0,0 +1,697 @@
+// Copyright 2017 Google Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//    http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.codeu.codingchallenge;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * purpose of this class is to store JSON trees in a binary form that loads much faster than parsing their text. A
+ * snapshot is laid out as follows:
+ * - a header of MAGIC and VERSION, as big endian ints
+ * - the key dictionary: the number of distinct keys, then each key as a length prefixed UTF-8 string
+ * - the outer object.
+ * An object is the number of bytes that follow in it, as a big endian int so it can be skipped whole, and its number
+ * of values. Each value is then its key's number in the dictionary, shifted left by one with the type in the low
+ * bit, and either a length prefixed UTF-8 string or a nested object. Within an object the strings come first. Values
+ * that are null are left out. All counts, lengths and key numbers are varints: seven bits to a byte, lowest first,
+ * with the high bit set on every byte but the last, so most of them take a single byte.
+ * A snapshot can be decoded into a tree of ordinary objects, or mapped and read in place through BinaryJSON, which
+ * only decodes the keys and strings that are asked for. Both check the structure first, so a damaged snapshot fails
+ * with an IOException instead of giving wrong answers later. A codec holds only its settings and can be shared by
+ * threads.
+ */
+final class BinaryCodec {
+  static final int MAGIC = 0x4A534C42;  //"JSLB"
+  static final int VERSION = 1;
+
+  static final byte STRING = 0;
+  static final byte OBJECT = 1;
+
+  //Size of the buffer write fills and flushes to the channel
+  private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+  private static final String FORMAT_ERROR_MSG = "Not a valid binary JSON-lite snapshot";
+  private static final String DEPTH_ERROR_MSG = "Binary JSON-lite snapshot is nested too deeply";
+  private static final String SIZE_ERROR_MSG = "Binary JSON-lite snapshots must be smaller than 2GB";
+
+  private final int maxDepth;
+  private final JSONFactory factory;
+
+  /**
+   * Creates a codec that reads objects nested up to MyJSONParser.DEFAULT_MAX_DEPTH levels deep into MyJSON objects
+   */
+  BinaryCodec() {
+    this(MyJSONParser.DEFAULT_MAX_DEPTH, null);
+  }
+
+  /**
+   * Creates a codec that reads objects nested up to the given number of levels deep and decodes them into objects
+   * created by factory.object()
+   * @param maxDepth int
+   * @param factory JSONFactory or null to use MyJSON
+   */
+  BinaryCodec(int maxDepth, JSONFactory factory) {
+    if (maxDepth < 1) {
+      throw new IllegalArgumentException("maxDepth must be at least 1");
+    }
+    this.maxDepth = maxDepth;
+    this.factory = factory;
+  }
+
+  /**
+   * purpose of this method is to encode a tree into a new buffer of exactly the snapshot's size
+   * @param json JSON the outer object
+   * @return ByteBuffer holding the snapshot from its position to its limit
+   */
+  ByteBuffer encode(JSON json) {
+    Encoder encoder = new Encoder();
+    encoder.buffer = ByteBuffer.allocate(encoder.measure(json));
+    encoder.putSnapshot(json);
+
+    ByteBuffer buffer = encoder.buffer;
+    buffer.flip();
+    return buffer;
+  }
+
+  /**
+   * purpose of this method is to encode a tree and write it to a channel, for example a FileChannel. The snapshot is
+   * never held in memory as a whole: it is encoded into a small buffer that is written out each time it fills. A
+   * FileChannel is written from its current position and is not truncated, so writing over a longer file leaves its
+   * old tail behind; truncate the channel first, or open it with TRUNCATE_EXISTING.
+   * @param json JSON the outer object
+   * @param channel WritableByteChannel
+   * @throws IOException if the channel cannot be written
+   */
+  void write(JSON json, WritableByteChannel channel) throws IOException {
+    Encoder encoder = new Encoder();
+    encoder.measure(json);
+    encoder.buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+    encoder.channel = channel;
+    try {
+      encoder.putSnapshot(json);
+      encoder.flush();
+    } catch (ChannelException ex) {
+      throw ex.getCause();
+    }
+  }
+
+  /**
+   * purpose of this method is to decode a whole snapshot into a tree, starting at the buffer's position. Afterwards
+   * the position is just past the snapshot
+   * @param buffer ByteBuffer
+   * @return JSON the outer object
+   * @throws IOException if the buffer does not hold a valid snapshot
+   */
+  JSON decode(ByteBuffer buffer) throws IOException {
+    int[] keyOffsets = readHeader(buffer);
+    int root = buffer.position();
+    check(buffer, root, buffer.limit(), keyOffsets.length, 1);
+
+    String[] keys = new String[keyOffsets.length];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = string(buffer, keyOffsets[i]);
+    }
+    JSON json = new Decoder(buffer, keys).object(root);
+    buffer.position(root + 4 + buffer.getInt(root));
+    return json;
+  }
+
+  /**
+   * purpose of this method is to read a whole file holding a snapshot and decode it into a tree
+   * @param channel FileChannel
+   * @return JSON the outer object
+   * @throws IOException if the file cannot be read or does not hold a valid snapshot
+   */
+  JSON read(FileChannel channel) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(fileSize(channel));
+    long position = 0;
+    while (buffer.hasRemaining()) {
+      int read = channel.read(buffer, position);
+      if (read < 0) {
+        throw new IOException(FORMAT_ERROR_MSG);
+      }
+      position = position + read;
+    }
+    buffer.flip();
+    return decode(buffer);
+  }
+
+  /**
+   * purpose of this method is to map a file holding a snapshot and read it in place. Only the structure and the key
+   * dictionary are read now; strings are decoded when they are asked for. The mapping stays valid after the channel
+   * is closed
+   * @param channel FileChannel
+   * @return JSON a BinaryJSON for the outer object
+   * @throws IOException if the file cannot be mapped or does not hold a valid snapshot
+   */
+  JSON map(FileChannel channel) throws IOException {
+    return open(channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize(channel)));
+  }
+
+  /**
+   * purpose of this method is to read a snapshot in place, starting at the buffer's position, the same way map does
+   * @param buffer ByteBuffer that must not be changed while the objects read from it are in use
+   * @return JSON a BinaryJSON for the outer object
+   * @throws IOException if the buffer does not hold a valid snapshot
+   */
+  JSON open(ByteBuffer buffer) throws IOException {
+    ByteBuffer snapshot = buffer.duplicate();
+    int[] keyOffsets = readHeader(snapshot);
+    int root = snapshot.position();
+    check(snapshot, root, snapshot.limit(), keyOffsets.length, 1);
+    return new BinaryJSON(new BinaryJSON.Snapshot(snapshot, keyOffsets), root);
+  }
+
+  /**
+   * helper method to get the size of a file that has to fit in a single buffer
+   * @param channel FileChannel
+   * @return int
+   * @throws IOException if the file cannot be read or is 2GB or larger
+   */
+  private int fileSize(FileChannel channel) throws IOException {
+    long size = channel.size();
+    if (size > Integer.MAX_VALUE) {
+      throw new IOException("Binary JSON-lite snapshots must be smaller than 2GB");
+    }
+    return (int) size;
+  }
+
+  /**
+   * helper method to read the header and find the keys of the dictionary, leaving the buffer at the outer object
+   * @param buffer ByteBuffer
+   * @return int[] where the length of each key starts, by number
+   * @throws IOException if the header or dictionary is not valid
+   */
+  private int[] readHeader(ByteBuffer buffer) throws IOException {
+    try {
+      if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+        throw new IOException(FORMAT_ERROR_MSG);
+      }
+    } catch (BufferUnderflowException ex) {
+      throw new IOException(FORMAT_ERROR_MSG, ex);
+    }
+    int end = buffer.limit();
+    int position = buffer.position();
+    int count = checkVarint(buffer, position, end);
+    position = position + varintSize(count);
+    //Every key takes at least a byte for its length, so a larger count cannot be right
+    if (count > end - position) {
+      throw new IOException(FORMAT_ERROR_MSG);
+    }
+    int[] keyOffsets = new int[count];
+    for (int i = 0; i < count; i++) {
+      keyOffsets[i] = position;
+      position = checkString(buffer, position, end);
+    }
+    buffer.position(position);
+    return keyOffsets;
+  }
+
+  /**
+   * helper method to check that an object and everything in it lies within its bounds and only uses known keys and
+   * types, so reading it later cannot go wrong
+   * @param buffer ByteBuffer
+   * @param offset int where the object starts
+   * @param end int the most the object may extend to
+   * @param keys int the number of keys in the dictionary
+   * @param depth int the level of the object, the outer one being 1
+   * @throws IOException if the object is not valid
+   */
+  private void check(ByteBuffer buffer, int offset, int end, int keys, int depth) throws IOException {
+    if (depth > maxDepth) {
+      throw new IOException(DEPTH_ERROR_MSG);
+    }
+    if (end - offset < 5) {
+      throw new IOException(FORMAT_ERROR_MSG);
+    }
+    int size = buffer.getInt(offset);
+    if (size < 1 || size > end - offset - 4) {
+      throw new IOException(FORMAT_ERROR_MSG);
+    }
+    end = offset + 4 + size;
+    int count = checkVarint(buffer, offset + 4, end);
+    int position = offset + 4 + varintSize(count);
+    for (int i = 0; i < count; i++) {
+      int tag = checkVarint(buffer, position, end);
+      if (tag >>> 1 >= keys) {
+        throw new IOException(FORMAT_ERROR_MSG);
+      }
+      position = position + varintSize(tag);
+      if ((tag & 1) == STRING) {
+        position = checkString(buffer, position, end);
+      }
+      else {
+        check(buffer, position, end, keys, depth + 1);
+        position = position + 4 + buffer.getInt(position);
+      }
+    }
+    if (position != end) {
+      throw new IOException(FORMAT_ERROR_MSG);
+    }
+  }
+
+  /**
+   * helper method to check that a length prefixed string lies within its bounds
+   * @param buffer ByteBuffer
+   * @param position int where its length starts
+   * @param end int
+   * @return int where the string ends
+   * @throws IOException if it does not fit
+   */
+  private int checkString(ByteBuffer buffer, int position, int end) throws IOException {
+    int length = checkVarint(buffer, position, end);
+    position = position + varintSize(length);
+    if (length > end - position) {
+      throw new IOException(FORMAT_ERROR_MSG);
+    }
+    return position + length;
+  }
+
+  /**
+   * helper method to read a varint that must lie within its bounds and be written in as few bytes as possible, so
+   * varintSize can tell later readers how far to move on
+   * @param buffer ByteBuffer
+   * @param position int
+   * @param end int
+   * @return int a value that is never negative
+   * @throws IOException if the varint is not valid
+   */
+  private int checkVarint(ByteBuffer buffer, int position, int end) throws IOException {
+    long value = 0;
+    for (int i = 0; i < 5 && position + i < end; i++) {
+      int b = buffer.get(position + i);
+      value = value | (long) (b & 0x7F) << (7 * i);
+      if (b >= 0) {
+        if (value > Integer.MAX_VALUE || varintSize((int) value) != i + 1) {
+          break;
+        }
+        return (int) value;
+      }
+    }
+    throw new IOException(FORMAT_ERROR_MSG);
+  }
+
+  /**
+   * helper method to read a varint from a checked snapshot
+   * @param buffer ByteBuffer
+   * @param position int
+   * @return int
+   */
+  static int getVarint(ByteBuffer buffer, int position) {
+    int value = 0;
+    int shift = 0;
+    int b;
+    do {
+      b = buffer.get(position);
+      value = value | (b & 0x7F) << shift;
+      shift = shift + 7;
+      position = position + 1;
+    } while (b < 0);
+    return value;
+  }
+
+  /**
+   * @param value int that is not negative
+   * @return int how many bytes the varint of the value takes
+   */
+  static int varintSize(int value) {
+    int size = 1;
+    while (value >= 0x80) {
+      value = value >>> 7;
+      size = size + 1;
+    }
+    return size;
+  }
+
+  /**
+   * helper method to decode a length prefixed UTF-8 string from a checked snapshot, which may be direct or mapped
+   * @param buffer ByteBuffer
+   * @param position int where its length starts
+   * @return String
+   */
+  static String string(ByteBuffer buffer, int position) {
+    int length = getVarint(buffer, position);
+    position = position + varintSize(length);
+    if (buffer.hasArray()) {
+      return new String(buffer.array(), buffer.arrayOffset() + position, length, StandardCharsets.UTF_8);
+    }
+    byte[] bytes = new byte[length];
+    ByteBuffer view = buffer.duplicate();
+    view.position(position);
+    view.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * purpose of this class is to write a tree in the snapshot format. measure walks the tree once to number the keys
+   * and work out the size and number of values of every object, so the second walk, putSnapshot, can write every
+   * size prefix before the object it belongs to. The bytes go to buffer, which is either sized to the whole snapshot
+   * or, when there is a channel, flushed to it each time it fills.
+   */
+  private final class Encoder implements JSONVisitor {
+    private final Map<String, Integer> numbers = new HashMap<>();
+    private final List<String> keys = new ArrayList<>();
+    private ByteBuffer buffer;
+    private WritableByteChannel channel;
+
+    //Size after the size prefix and number of values of every object, in the order both walks reach them
+    private int[] sizes = new int[16];
+    private int[] counts = new int[16];
+    private int measured;
+    private int written;
+
+    //Nesting of the object being measured, to keep encoding within the depth a decode accepts
+    private int depth;
+
+    //Bytes and values that are not null seen so far in the object being measured
+    private long bytes;
+    private int counted;
+
+    private final JSONVisitor writer = new JSONVisitor() {
+      @Override
+      public void visitString(String name, String value) {
+        if (value != null) {
+          putVarint(numbers.get(name) << 1 | STRING);
+          putString(value);
+        }
+      }
+
+      @Override
+      public void visitObject(String name, JSON value) {
+        if (value != null) {
+          putVarint(numbers.get(name) << 1 | OBJECT);
+          putObject(value);
+        }
+      }
+    };
+
+    /**
+     * purpose of this method is to number the keys of a tree and measure its objects
+     * @param json JSON the outer object
+     * @return int the size of the whole snapshot
+     */
+    int measure(JSON json) {
+      long size = 8 + 4 + measure(json, 1);
+      size = size + varintSize(keys.size());
+      for (String key : keys) {
+        int length = utf8Length(key);
+        size = size + varintSize(length) + length;
+      }
+      if (size > Integer.MAX_VALUE) {
+        throw new IllegalArgumentException(SIZE_ERROR_MSG);
+      }
+      return (int) size;
+    }
+
+    /**
+     * purpose of this method is to write the header, the dictionary and the outer object of a measured tree
+     * @param json JSON the outer object
+     */
+    void putSnapshot(JSON json) {
+      putInt(MAGIC);
+      putInt(VERSION);
+      putVarint(keys.size());
+      for (String key : keys) {
+        putString(key);
+      }
+      putObject(json);
+    }
+
+    /**
+     * helper method to measure one object and, through the visitor methods, everything nested in it
+     * @param json JSON
+     * @param level int the depth of the object, the outer object is at 1
+     * @return long the size of the object after its size prefix
+     */
+    private long measure(JSON json, int level) {
+      if (level > maxDepth) {
+        throw new IllegalArgumentException(DEPTH_ERROR_MSG);
+      }
+      if (measured == sizes.length) {
+        sizes = Arrays.copyOf(sizes, measured * 2);
+        counts = Arrays.copyOf(counts, measured * 2);
+      }
+      int index = measured;
+      measured = measured + 1;
+
+      long outerBytes = bytes;
+      int outerCounted = counted;
+      bytes = 0;
+      counted = 0;
+      depth = level;
+      json.forEach(this);
+      long size = varintSize(counted) + bytes;
+      if (size > Integer.MAX_VALUE) {
+        throw new IllegalArgumentException(SIZE_ERROR_MSG);
+      }
+      sizes[index] = (int) size;
+      counts[index] = counted;
+      bytes = outerBytes;
+      counted = outerCounted;
+      return size;
+    }
+
+    @Override
+    public void visitString(String name, String value) {
+      if (value != null) {
+        int length = utf8Length(value);
+        counted = counted + 1;
+        bytes = bytes + varintSize(number(name) << 1) + varintSize(length) + length;
+      }
+    }
+
+    @Override
+    public void visitObject(String name, JSON value) {
+      if (value != null) {
+        int key = number(name);
+        counted = counted + 1;
+        int level = depth;
+        long size = measure(value, level + 1);
+        depth = level;
+        bytes = bytes + varintSize(key << 1) + 4 + size;
+      }
+    }
+
+    /**
+     * purpose of this method is to write an object with the size and count measure found for it
+     * @param json JSON
+     */
+    void putObject(JSON json) {
+      int index = written;
+      written = written + 1;
+      putInt(sizes[index]);
+      putVarint(counts[index]);
+      //forEach visits the strings first, as the format has them
+      json.forEach(writer);
+    }
+
+    /**
+     * purpose of this method is to write a length prefixed string, encoding it as UTF-8 straight into the buffer. A
+     * surrogate that is not part of a pair is written as '?', as String.getBytes would
+     * @param value String
+     */
+    void putString(String value) {
+      putVarint(utf8Length(value));
+      int length = value.length();
+      for (int i = 0; i < length; i++) {
+        ensure(4);
+        char c = value.charAt(i);
+        if (c < 0x80) {
+          buffer.put((byte) c);
+        }
+        else if (c < 0x800) {
+          buffer.put((byte) (0xC0 | c >> 6));
+          buffer.put((byte) (0x80 | c & 0x3F));
+        }
+        else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+          int codePoint = Character.toCodePoint(c, value.charAt(++i));
+          buffer.put((byte) (0xF0 | codePoint >> 18));
+          buffer.put((byte) (0x80 | codePoint >> 12 & 0x3F));
+          buffer.put((byte) (0x80 | codePoint >> 6 & 0x3F));
+          buffer.put((byte) (0x80 | codePoint & 0x3F));
+        }
+        else if (Character.isSurrogate(c)) {
+          buffer.put((byte) '?');
+        }
+        else {
+          buffer.put((byte) (0xE0 | c >> 12));
+          buffer.put((byte) (0x80 | c >> 6 & 0x3F));
+          buffer.put((byte) (0x80 | c & 0x3F));
+        }
+      }
+    }
+
+    void putInt(int value) {
+      ensure(4);
+      buffer.putInt(value);
+    }
+
+    void putVarint(int value) {
+      ensure(5);
+      while (value >= 0x80) {
+        buffer.put((byte) (value | 0x80));
+        value = value >>> 7;
+      }
+      buffer.put((byte) value);
+    }
+
+    /**
+     * purpose of this method is to write whatever is in the buffer to the channel and empty the buffer
+     */
+    void flush() {
+      buffer.flip();
+      try {
+        while (buffer.hasRemaining()) {
+          channel.write(buffer);
+        }
+      } catch (IOException ex) {
+        throw new ChannelException(ex);
+      }
+      buffer.clear();
+    }
+
+    /**
+     * helper method to give a key its number the first time it is seen
+     * @param name String
+     * @return int the key's number
+     */
+    private int number(String name) {
+      Integer number = numbers.get(name);
+      if (number == null) {
+        number = keys.size();
+        numbers.put(name, number);
+        keys.add(name);
+      }
+      return number;
+    }
+
+    /**
+     * helper method to make room for up to the given number of bytes by flushing the buffer to the channel. Without a
+     * channel the buffer already has room for the whole snapshot
+     * @param bytes int
+     */
+    private void ensure(int bytes) {
+      if (channel != null && buffer.remaining() < bytes) {
+        flush();
+      }
+    }
+  }
+
+  /**
+   * helper method to count the bytes a string takes in UTF-8, the way Encoder.putString writes it
+   * @param value String
+   * @return int
+   */
+  private static int utf8Length(String value) {
+    int length = value.length();
+    int bytes = length;
+    for (int i = 0; i < length; i++) {
+      char c = value.charAt(i);
+      if (c >= 0x800) {
+        if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+          bytes = bytes + 2;
+          i = i + 1;
+        }
+        else if (!Character.isSurrogate(c)) {
+          bytes = bytes + 2;
+        }
+      }
+      else if (c >= 0x80) {
+        bytes = bytes + 1;
+      }
+    }
+    return bytes;
+  }
+
+  /**
+   * purpose of this class is to carry an IOException thrown by the channel out through forEach, which does not
+   * declare it
+   */
+  private static final class ChannelException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    ChannelException(IOException cause) {
+      super(cause);
+    }
+
+    @Override
+    public synchronized IOException getCause() {
+      return (IOException) super.getCause();
+    }
+  }
+
+  /**
+   * purpose of this class is to turn a checked snapshot into a tree of ordinary objects
+   */
+  private final class Decoder {
+    private final ByteBuffer buffer;
+    private final String[] keys;
+
+    Decoder(ByteBuffer buffer, String[] keys) {
+      this.buffer = buffer;
+      this.keys = keys;
+    }
+
+    /**
+     * helper method to decode the object at the given offset and everything in it
+     * @param offset int
+     * @return JSON
+     */
+    JSON object(int offset) {
+      JSON json = factory == null ? new MyJSON() : factory.object();
+      //As in the parser, values for a PersistentJSON are collected and sorted once instead of copied in one by one
+      PersistentJSON.Builder builder = json instanceof PersistentJSON ? ((PersistentJSON) json).toBuilder() : null;
+      int count = getVarint(buffer, offset + 4);
+      int position = offset + 4 + varintSize(count);
+      for (int i = 0; i < count; i++) {
+        int tag = getVarint(buffer, position);
+        String key = keys[tag >>> 1];
+        position = position + varintSize(tag);
+        if ((tag & 1) == STRING) {
+          String value = string(buffer, position);
+          if (builder != null) {
+            builder.setString(key, value);
+          }
+          else {
+            json = json.setString(key, value);
+          }
+          int length = getVarint(buffer, position);
+          position = position + varintSize(length) + length;
+        }
+        else {
+          JSON value = object(position);
+          if (builder != null) {
+            builder.setObject(key, value);
+          }
+          else {
+            json = json.setObject(key, value);
+          }
+          position = position + 4 + buffer.getInt(position);
+        }
+      }
+      return builder == null ? json : builder.build();
+    }
+  }
+}
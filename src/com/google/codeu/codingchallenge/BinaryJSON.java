@@ -0,0 +1,307 @@
+// Copyright 2017 Google Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//    http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.codeu.codingchallenge;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * purpose of this class is to implement the JSON interface on top of a binary snapshot written by BinaryCodec,
+ * usually a mapped file, without decoding it first. A lookup turns the name into its number in the key dictionary
+ * and then only compares numbers while it walks the object's values, jumping over strings by their lengths and over
+ * nested objects by their sizes. Strings are decoded every time they are asked for, so nothing of the snapshot is
+ * kept on the heap but the keys that have been used and a BinaryJSON for each nested object that has been read.
+ * Changing an object copies its own values into a MyJSON first, which is used from then on. Nested objects stay in
+ * the snapshot. As long as nothing is changed, objects can be read by any number of threads.
+ */
+final class BinaryJSON implements JSON {
+
+  /**
+   * purpose of this class is to hold a checked snapshot together with its key dictionary. Keys are decoded the first
+   * time they are needed, and the map from key to number is built the first time a key is looked up. Threads that
+   * race on either may both do the work, which is harmless since the results are equal
+   */
+  static final class Snapshot {
+    private final ByteBuffer buffer;
+    private final int[] keyOffsets;
+    private final String[] keys;
+    private volatile Map<String, Integer> numbers;
+
+    Snapshot(ByteBuffer buffer, int[] keyOffsets) {
+      this.buffer = buffer;
+      this.keyOffsets = keyOffsets;
+      this.keys = new String[keyOffsets.length];
+    }
+
+    /**
+     * @param number int
+     * @return String the key with the given number
+     */
+    String key(int number) {
+      String key = keys[number];
+      if (key == null) {
+        key = BinaryCodec.string(buffer, keyOffsets[number]);
+        keys[number] = key;
+      }
+      return key;
+    }
+
+    /**
+     * @param name String
+     * @return int the number of the given key, or -1 if it is not in the dictionary
+     */
+    int number(String name) {
+      Map<String, Integer> map = numbers;
+      if (map == null) {
+        map = new HashMap<>();
+        for (int i = 0; i < keys.length; i++) {
+          map.put(key(i), i);
+        }
+        numbers = map;
+      }
+      Integer number = map.get(name);
+      return number == null ? -1 : number;
+    }
+  }
+
+  private final Snapshot snapshot;
+
+  //Where this object starts in the snapshot
+  private final int offset;
+
+  //Once this object has been changed, all calls go to this copy
+  private MyJSON changed;
+
+  //The nested objects that have been asked for so far, by the number of their value in this object, kept so that
+  //changes made to them are not lost. Created on first use
+  private BinaryJSON[] children;
+
+  BinaryJSON(Snapshot snapshot, int offset) {
+    this.snapshot = snapshot;
+    this.offset = offset;
+  }
+
+  /**
+   *
+   * @param name String
+   * @return JSON
+   */
+  @Override
+  public JSON getObject(String name) {
+    if (changed != null) {
+      return changed.getObject(name);
+    }
+    long found = find(name, BinaryCodec.OBJECT);
+    return found < 0 ? null : child((int) (found >>> 32), (int) found);
+  }
+
+  /**
+   *
+   * @param name String
+   * @param value JSON
+   * @return JSON
+   */
+  @Override
+  public JSON setObject(String name, JSON value) {
+    change().setObject(name, value);
+    return this;
+  }
+
+  /**
+   *
+   * @param name String
+   * @return String
+   */
+  @Override
+  public String getString(String name) {
+    if (changed != null) {
+      return changed.getString(name);
+    }
+    long found = find(name, BinaryCodec.STRING);
+    return found < 0 ? null : BinaryCodec.string(snapshot.buffer, (int) found);
+  }
+
+  /**
+   *
+   * @param name String
+   * @param value String
+   * @return JSON
+   */
+  @Override
+  public JSON setString(String name, String value) {
+    change().setString(name, value);
+    return this;
+  }
+
+  /**
+   *
+   * @param names Collection<String>
+   */
+  @Override
+  public void getObjects(Collection<String> names) {
+    if (changed != null) {
+      changed.getObjects(names);
+    }
+    else {
+      addKeys(names, BinaryCodec.OBJECT);
+    }
+  }
+
+  /**
+   *
+   * @param names Collection<String>
+   */
+  @Override
+  public void getStrings(Collection<String> names) {
+    if (changed != null) {
+      changed.getStrings(names);
+    }
+    else {
+      addKeys(names, BinaryCodec.STRING);
+    }
+  }
+
+  /**
+   *
+   * @param visitor JSONVisitor
+   */
+  @Override
+  public void forEach(JSONVisitor visitor) {
+    if (changed != null) {
+      changed.forEach(visitor);
+      return;
+    }
+    ByteBuffer buffer = snapshot.buffer;
+    int count = BinaryCodec.getVarint(buffer, offset + 4);
+    int position = offset + 4 + BinaryCodec.varintSize(count);
+    for (int i = 0; i < count; i++) {
+      int tag = BinaryCodec.getVarint(buffer, position);
+      int value = position + BinaryCodec.varintSize(tag);
+      if ((tag & 1) == BinaryCodec.STRING) {
+        visitor.visitString(snapshot.key(tag >>> 1), BinaryCodec.string(buffer, value));
+      }
+      else {
+        visitor.visitObject(snapshot.key(tag >>> 1), child(i, value));
+      }
+      position = skip(tag, value);
+    }
+  }
+
+  /**
+   * helper method to find the value with the given key and type
+   * @param name String
+   * @param type byte
+   * @return long the number of the value in this object in the high half and where it starts in the low half, or -1
+   * if there is none
+   */
+  private long find(String name, byte type) {
+    int number = snapshot.number(name);
+    if (number < 0) {
+      return -1;
+    }
+    int wanted = number << 1 | type;
+    ByteBuffer buffer = snapshot.buffer;
+    int count = BinaryCodec.getVarint(buffer, offset + 4);
+    int position = offset + 4 + BinaryCodec.varintSize(count);
+    for (int i = 0; i < count; i++) {
+      int tag = BinaryCodec.getVarint(buffer, position);
+      int value = position + BinaryCodec.varintSize(tag);
+      if (tag == wanted) {
+        return (long) i << 32 | value;
+      }
+      position = skip(tag, value);
+    }
+    return -1;
+  }
+
+  /**
+   * helper method to get the nested object that is the value with the given number, creating its BinaryJSON the
+   * first time
+   * @param index int
+   * @param position int where the value starts
+   * @return BinaryJSON
+   */
+  private BinaryJSON child(int index, int position) {
+    if (children == null) {
+      children = new BinaryJSON[BinaryCodec.getVarint(snapshot.buffer, offset + 4)];
+    }
+    BinaryJSON child = children[index];
+    if (child == null) {
+      child = new BinaryJSON(snapshot, position);
+      children[index] = child;
+    }
+    return child;
+  }
+
+  /**
+   * helper method to copy the keys of every value of one type to the given collection
+   * @param names Collection<String>
+   * @param type byte
+   */
+  private void addKeys(Collection<String> names, byte type) {
+    ByteBuffer buffer = snapshot.buffer;
+    int count = BinaryCodec.getVarint(buffer, offset + 4);
+    int position = offset + 4 + BinaryCodec.varintSize(count);
+    for (int i = 0; i < count; i++) {
+      int tag = BinaryCodec.getVarint(buffer, position);
+      int value = position + BinaryCodec.varintSize(tag);
+      if ((tag & 1) == type) {
+        names.add(snapshot.key(tag >>> 1));
+      }
+      position = skip(tag, value);
+    }
+  }
+
+  /**
+   * helper method to jump over a value
+   * @param tag int the key number and type of the value
+   * @param value int where the value starts
+   * @return int where the next value starts
+   */
+  private int skip(int tag, int value) {
+    ByteBuffer buffer = snapshot.buffer;
+    if ((tag & 1) == BinaryCodec.STRING) {
+      int length = BinaryCodec.getVarint(buffer, value);
+      return value + BinaryCodec.varintSize(length) + length;
+    }
+    return value + 4 + buffer.getInt(value);
+  }
+
+  /**
+   * helper method to copy this object's values into the MyJSON that takes over once it is changed
+   * @return MyJSON
+   */
+  private MyJSON change() {
+    if (changed == null) {
+      final MyJSON copy = new MyJSON();
+      forEach(new JSONVisitor() {
+        @Override
+        public void visitString(String name, String value) {
+          copy.setString(name, value);
+        }
+
+        @Override
+        public void visitObject(String name, JSON value) {
+          copy.setObject(name, value);
+        }
+      });
+      changed = copy;
+    }
+
+    return changed;
+  }
+}
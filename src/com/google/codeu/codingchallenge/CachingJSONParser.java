@@ -0,0 +1,281 @@
+// Copyright 2017 Google Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//    http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.codeu.codingchallenge;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * purpose of this class is to parse each distinct document only once. It wraps another parser and keeps the objects
+ * it returned, keyed by the text they were parsed from, so parsing the same text again returns the same object.
+ * Documents are found by a 64-bit hash of their text together with its length. The text itself is only compared to
+ * confirm a match, so two texts with the same hash never share an object.
+ * Returned objects are read only views (see ReadOnlyJSON), because every caller that parses the same text gets the
+ * same object and none of them may change what the others see.
+ * The cache holds at most a fixed number of documents and a fixed number of characters of text. Cached texts are kept
+ * for that comparison, alongside the objects parsed from them, so the character bound is what keeps large documents
+ * from filling the heap; a text longer than a stripe's share of it is parsed every time and never cached. The cache is
+ * split into stripes, each with its own lock and its own share of both bounds, so threads parsing different documents
+ * rarely wait for each other. When a stripe is full the documents it has not returned for the longest time are
+ * dropped.
+ * Documents that fail to parse are not kept, so parsing one again throws again.
+ */
+final class CachingJSONParser implements JSONParser {
+  static final int DEFAULT_CAPACITY = 1024;
+  static final long DEFAULT_MAX_CHARS = 8L * 1024 * 1024;
+
+  private static final int STRIPES = 16;
+
+  private final JSONParser parser;
+  private final Stripe[] stripes;
+
+  /**
+   * Creates a cache that holds up to DEFAULT_CAPACITY documents and DEFAULT_MAX_CHARS characters of text
+   * @param parser JSONParser that is safe to use from several threads at once
+   */
+  CachingJSONParser(JSONParser parser) {
+    this(parser, DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Creates a cache that holds about the given number of documents and up to DEFAULT_MAX_CHARS characters of text
+   * @param parser JSONParser that is safe to use from several threads at once
+   * @param capacity int
+   */
+  CachingJSONParser(JSONParser parser, int capacity) {
+    this(parser, capacity, DEFAULT_MAX_CHARS);
+  }
+
+  /**
+   * Creates a cache that holds about the given number of documents and characters of text. Both are shared out evenly
+   * between the stripes, rounding up
+   * @param parser JSONParser that is safe to use from several threads at once
+   * @param capacity int
+   * @param maxChars long
+   */
+  CachingJSONParser(JSONParser parser, int capacity, long maxChars) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("capacity must be at least 1");
+    }
+    if (maxChars < 1) {
+      throw new IllegalArgumentException("maxChars must be at least 1");
+    }
+    this.parser = parser;
+    int count = Math.min(STRIPES, Integer.highestOneBit(capacity));
+    stripes = new Stripe[count];
+    for (int i = 0; i < count; i++) {
+      stripes[i] = new Stripe((capacity + count - 1) / count, (maxChars + count - 1) / count);
+    }
+  }
+
+  /**
+   * purpose of this method is to return the object parsed from the given text, parsing it only if it is not cached
+   * @param object String
+   * @return JSON read only
+   * @throws IOException if the text is not a valid JSON-lite object
+   */
+  @Override
+  public JSON parse(String object) throws IOException {
+    Key key = new Key(object);
+    Stripe stripe = stripes[key.hashCode() & (stripes.length - 1)];
+    JSON cached = stripe.lookup(key);
+    if (cached != null) {
+      return cached;
+    }
+
+    //Parsed without holding the lock; if two threads miss on the same text at once both parse it and the first
+    //one stays cached
+    return stripe.store(key, ReadOnlyJSON.of(parser.parse(object)));
+  }
+
+  /**
+   * @return long how many parses were answered from the cache
+   */
+  long hits() {
+    long hits = 0;
+    for (Stripe stripe : stripes) {
+      synchronized (stripe) {
+        hits = hits + stripe.hits;
+      }
+    }
+    return hits;
+  }
+
+  /**
+   * @return long how many parses had to go to the parser
+   */
+  long misses() {
+    long misses = 0;
+    for (Stripe stripe : stripes) {
+      synchronized (stripe) {
+        misses = misses + stripe.misses;
+      }
+    }
+    return misses;
+  }
+
+  /**
+   * @return long how many documents were dropped to make room for others
+   */
+  long evictions() {
+    long evictions = 0;
+    for (Stripe stripe : stripes) {
+      synchronized (stripe) {
+        evictions = evictions + stripe.evictions;
+      }
+    }
+    return evictions;
+  }
+
+  /**
+   * @return int how many documents are cached now
+   */
+  int size() {
+    int size = 0;
+    for (Stripe stripe : stripes) {
+      size = size + stripe.size();
+    }
+    return size;
+  }
+
+  /**
+   * @return long how many characters of text are cached now
+   */
+  long chars() {
+    long chars = 0;
+    for (Stripe stripe : stripes) {
+      synchronized (stripe) {
+        chars = chars + stripe.chars;
+      }
+    }
+    return chars;
+  }
+
+  /**
+   * purpose of this method is to drop every cached document. The counters are kept
+   */
+  void clear() {
+    for (Stripe stripe : stripes) {
+      stripe.clear();
+    }
+  }
+
+  /**
+   * purpose of this class is to identify a document by a 64-bit FNV-1a hash of its text and its length. The text is
+   * kept only to confirm that two keys with the same hash and length really are the same document
+   */
+  private static final class Key {
+    private final long hash;
+    private final String text;
+
+    Key(String text) {
+      long hash = 0xcbf29ce484222325L;
+      for (int i = 0; i < text.length(); i++) {
+        hash = (hash ^ text.charAt(i)) * 0x100000001b3L;
+      }
+      this.hash = hash;
+      this.text = text;
+    }
+
+    int length() {
+      return text.length();
+    }
+
+    @Override
+    public int hashCode() {
+      int hash = (int) (this.hash ^ (this.hash >>> 32));
+      return hash ^ (hash >>> 16);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) other;
+      return hash == key.hash && text.length() == key.text.length() && text.equals(key.text);
+    }
+  }
+
+  /**
+   * purpose of this class is to hold one stripe of the cache. Its map is kept in the order the documents were last
+   * returned, oldest first, which is the order they are dropped in. Everything is done while holding the stripe
+   */
+  private static final class Stripe {
+    private final Map<Key, JSON> documents = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final int capacity;
+    private final long maxChars;
+    private long chars;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    Stripe(int capacity, long maxChars) {
+      this.capacity = capacity;
+      this.maxChars = maxChars;
+    }
+
+    synchronized JSON lookup(Key key) {
+      JSON json = documents.get(key);
+      if (json == null) {
+        misses = misses + 1;
+      }
+      else {
+        hits = hits + 1;
+      }
+      return json;
+    }
+
+    /**
+     * purpose of this method is to cache a parsed document unless another thread has cached the same text meanwhile
+     * or the text alone is longer than the stripe may hold. Documents are dropped, oldest first, until both bounds
+     * are met again
+     * @param key Key
+     * @param json JSON
+     * @return JSON the cached object, or json if it was not cached
+     */
+    synchronized JSON store(Key key, JSON json) {
+      JSON cached = documents.get(key);
+      if (cached != null) {
+        return cached;
+      }
+      if (key.length() > maxChars) {
+        return json;
+      }
+      documents.put(key, json);
+      chars = chars + key.length();
+
+      Iterator<Key> oldest = documents.keySet().iterator();
+      while (documents.size() > capacity || chars > maxChars) {
+        chars = chars - oldest.next().length();
+        oldest.remove();
+        evictions = evictions + 1;
+      }
+      return json;
+    }
+
+    synchronized int size() {
+      return documents.size();
+    }
+
+    synchronized void clear() {
+      documents.clear();
+      chars = 0;
+    }
+  }
+}
@@ -0,0 +1,238 @@
+// Copyright 2017 Google Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//    http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.codeu.codingchallenge;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * purpose of this class is to implement the JSON interface with as little memory per object as possible. Keys, values
+ * and a tag saying whether each value is a string or an object are kept in three parallel arrays. Small objects are
+ * searched from front to back; once an object holds more than LINEAR_LIMIT values an open addressing hash table of
+ * slot numbers is added on top of the arrays so lookups stay fast.
+ */
+final class CompactJSON implements JSON {
+  static final int LINEAR_LIMIT = 8;
+
+  private static final byte STRING = 0;
+  private static final byte OBJECT = 1;
+
+  private static final String[] NO_KEYS = new String[0];
+  private static final Object[] NO_VALUES = new Object[0];
+  private static final byte[] NO_TYPES = new byte[0];
+
+  private String[] keys = NO_KEYS;
+  private Object[] values = NO_VALUES;
+  private byte[] types = NO_TYPES;
+  private int size;
+
+  //Slot number plus one of each key, by hash, or null while the object is small. Always at least twice as large as
+  //size so probing ends quickly
+  private int[] table;
+
+  /**
+   *
+   * @param name String
+   * @return JSON
+   */
+  @Override
+  public JSON getObject(String name) {
+    int slot = find(name, OBJECT);
+    return slot < 0 ? null : (JSON) values[slot];
+  }
+
+  /**
+   *
+   * @param name String
+   * @param value JSON
+   * @return JSON
+   */
+  @Override
+  public JSON setObject(String name, JSON value) {
+    put(name, value, OBJECT);
+    return this;
+  }
+
+  /**
+   *
+   * @param name String
+   * @return String
+   */
+  @Override
+  public String getString(String name) {
+    int slot = find(name, STRING);
+    return slot < 0 ? null : (String) values[slot];
+  }
+
+  /**
+   *
+   * @param name String
+   * @param value String
+   * @return JSON
+   */
+  @Override
+  public JSON setString(String name, String value) {
+    put(name, value, STRING);
+    return this;
+  }
+
+  /**
+   *
+   * @param names Collection<String>
+   */
+  @Override
+  public void getObjects(Collection<String> names) {
+    addKeys(names, OBJECT);
+  }
+
+  /**
+   *
+   * @param names Collection<String>
+   */
+  @Override
+  public void getStrings(Collection<String> names) {
+    addKeys(names, STRING);
+  }
+
+  /**
+   *
+   * @param visitor JSONVisitor
+   */
+  @Override
+  public void forEach(JSONVisitor visitor) {
+    for (int i = 0; i < size; i++) {
+      if (types[i] == STRING) {
+        visitor.visitString(keys[i], (String) values[i]);
+      }
+    }
+    for (int i = 0; i < size; i++) {
+      if (types[i] == OBJECT) {
+        visitor.visitObject(keys[i], (JSON) values[i]);
+      }
+    }
+  }
+
+  /**
+   * helper method to copy the keys of every value of one type to the given collection
+   * @param names Collection<String>
+   * @param type byte
+   */
+  private void addKeys(Collection<String> names, byte type) {
+    for (int i = 0; i < size; i++) {
+      if (types[i] == type) {
+        names.add(keys[i]);
+      }
+    }
+  }
+
+  /**
+   * helper method to find the slot of the value with the given key and type
+   * @param name String
+   * @param type byte
+   * @return int the slot or -1 if there is none
+   */
+  private int find(String name, byte type) {
+    if (table == null) {
+      for (int i = 0; i < size; i++) {
+        if (types[i] == type && name.equals(keys[i])) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    int mask = table.length - 1;
+    for (int i = hash(name, type) & mask; table[i] != 0; i = (i + 1) & mask) {
+      int slot = table[i] - 1;
+      if (types[slot] == type && name.equals(keys[slot])) {
+        return slot;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * helper method to overwrite the value with the given key and type, or add it to the end if there is none
+   * @param name String
+   * @param value Object
+   * @param type byte
+   */
+  private void put(String name, Object value, byte type) {
+    if (name == null) {
+      throw new NullPointerException("name");
+    }
+    int slot = find(name, type);
+    if (slot >= 0) {
+      values[slot] = value;
+      return;
+    }
+
+    if (size == keys.length) {
+      int capacity = Math.max(4, size * 2);
+      keys = Arrays.copyOf(keys, capacity);
+      values = Arrays.copyOf(values, capacity);
+      types = Arrays.copyOf(types, capacity);
+    }
+    keys[size] = name;
+    values[size] = value;
+    types[size] = type;
+    size = size + 1;
+
+    if (size > LINEAR_LIMIT) {
+      if (table == null || size * 2 > table.length) {
+        rehash(Integer.highestOneBit(size) * 4);
+      }
+      else {
+        insert(size - 1);
+      }
+    }
+  }
+
+  /**
+   * helper method to rebuild the hash table of slots with the given power of two length
+   * @param length int
+   */
+  private void rehash(int length) {
+    table = new int[length];
+    for (int slot = 0; slot < size; slot++) {
+      insert(slot);
+    }
+  }
+
+  /**
+   * helper method to add a slot to the hash table
+   * @param slot int
+   */
+  private void insert(int slot) {
+    int mask = table.length - 1;
+    int i = hash(keys[slot], types[slot]) & mask;
+    while (table[i] != 0) {
+      i = (i + 1) & mask;
+    }
+    table[i] = slot + 1;
+  }
+
+  /**
+   * helper method to spread the hash of a key and type over the low bits used to index the table
+   * @param name String
+   * @param type byte
+   * @return int
+   */
+  private static int hash(String name, byte type) {
+    int h = name.hashCode() * 31 + type;
+    return h ^ (h >>> 16);
+  }
+}
@@ -54,4 +54,11 @@ interface JSON {
   //
   // Copy the names of all string values to the given collection.
   void getStrings(Collection<String> names);
+
+  // FOR EACH
+  //
+  // Call the visitor once for every value of this object, strings first and
+  // then objects, without copying any names. Nested objects are not entered;
+  // use JSONWalker to visit a whole tree.
+  void forEach(JSONVisitor visitor);
 }
@@ -0,0 +1,213 @@
+// Copyright 2017 Google Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//    http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.codeu.codingchallenge;
+
+import java.io.IOException;
+
+/**
+ * purpose of this class is to let a caller pull the contents of a document one token at a time instead of having the
+ * whole document turned into JSON objects. Every call to nextToken checks the next bit of the grammar and reports
+ * what it found; the key and string that go with it can then be asked for. An object that is of no interest can be
+ * passed over with skipChildren, which only looks for quotes and braces and creates nothing, so picking a few fields
+ * out of a large document costs little more than reading it.
+ * A cursor is created by MyJSONParser.cursor and, like its input, must only be used by one thread.
+ */
+final class JSONCursor {
+  //Tokens returned by nextToken
+  static final int START_OBJECT = 1;
+  static final int END_OBJECT = 2;
+  static final int STRING = 3;
+  static final int END_DOCUMENT = -1;
+
+  //Token before the first call to nextToken
+  private static final int NONE = 0;
+
+  private final JSONInput input;
+  private final int maxDepth;
+  private final KeyTable keyTable;
+
+  //The last token returned and the key and string that go with it
+  private int token = NONE;
+  private String key;
+  private CharSequence text;
+
+  //Number of objects that have been started but not ended, and whether the innermost one has nothing in it yet
+  private int depth;
+  private boolean justOpened;
+
+  /**
+   * Creates a cursor that reads a document from the given input
+   * @param input JSONInput
+   * @param maxDepth int deepest nesting that will be accepted
+   * @param keyTable KeyTable or null to create a new String for every key
+   */
+  JSONCursor(JSONInput input, int maxDepth, KeyTable keyTable) {
+    this.input = input;
+    this.maxDepth = maxDepth;
+    this.keyTable = keyTable;
+  }
+
+  /**
+   * purpose of this method is to move on to the next token of the document: START_OBJECT when an object starts,
+   * STRING for a key with a string value, END_OBJECT when an object ends and END_DOCUMENT, repeatedly, once the outer
+   * object has ended and nothing but whitespace follows it
+   * @return int the token
+   * @throws IOException if the document is not a valid JSON-lite object or cannot be read
+   */
+  int nextToken() throws IOException {
+    key = null;
+    text = null;
+    if (depth == 0) {
+      if (token == NONE) {
+        if (input.nextToken() != '{') {
+          throw input.error(JSONInput.EXPECTED_OBJECT);
+        }
+        return opened();
+      }
+      if (token != END_DOCUMENT && input.nextToken() != -1) {
+        throw input.error(JSONInput.EXPECTED_END);
+      }
+      token = END_DOCUMENT;
+      return token;
+    }
+
+    int c = input.nextToken();
+    if (c == '}') {
+      return closed();
+    }
+    if (!justOpened) {
+      if (c != ',') {
+        throw input.error(JSONInput.EXPECTED_SEPARATOR);
+      }
+      c = input.nextToken();
+    }
+    if (c != '"') {
+      throw input.error(justOpened ? JSONInput.EXPECTED_KEY_OR_END : JSONInput.EXPECTED_KEY);
+    }
+    String name = keyTable == null ? input.readString() : input.readKey(keyTable);
+    if (input.nextToken() != ':') {
+      throw input.error(JSONInput.EXPECTED_COLON);
+    }
+
+    c = input.nextToken();
+    if (c == '{') {
+      if (depth == maxDepth) {
+        throw input.error(MyJSONParser.DEPTH_ERROR_MSG, null);
+      }
+      opened();
+    }
+    else if (c == '"') {
+      text = input.readText();
+      justOpened = false;
+      token = STRING;
+    }
+    else {
+      throw input.error(JSONInput.EXPECTED_VALUE);
+    }
+    key = name;
+    return token;
+  }
+
+  /**
+   * purpose of this method is to pass over everything inside the object that the last call to nextToken started, up
+   * to and including its closing brace, as if nextToken had returned END_OBJECT. Only quotes, braces and separators
+   * are looked at, so no keys or values are created and the objects inside are not checked against maxDepth. Does
+   * nothing if the last token was not START_OBJECT.
+   * @throws IOException if the object is not terminated or contains characters that cannot appear in JSON-lite
+   */
+  void skipChildren() throws IOException {
+    if (token != START_OBJECT) {
+      return;
+    }
+    int open = 1;
+    while (open > 0) {
+      int c = input.nextToken();
+      if (c == '"') {
+        input.skipString();
+      }
+      else if (c == '{') {
+        open = open + 1;
+      }
+      else if (c == '}') {
+        open = open - 1;
+      }
+      else if (c != ':' && c != ',') {
+        throw input.error(JSONInput.EXPECTED_TOKEN);
+      }
+    }
+    key = null;
+    closed();
+  }
+
+  /**
+   * @return int the last token returned by nextToken
+   */
+  int currentToken() {
+    return token;
+  }
+
+  /**
+   * @return String the key the current object or string is stored under, or null for the outer object and at
+   * END_OBJECT and END_DOCUMENT
+   */
+  String currentKey() {
+    return key;
+  }
+
+  /**
+   * @return String the current string value, or null if the last token was not STRING
+   */
+  String currentString() {
+    return text == null ? null : text.toString();
+  }
+
+  /**
+   * Same as currentString but returns a view that is only valid until the next call to nextToken, so nothing is copied
+   * @return CharSequence
+   */
+  CharSequence currentText() {
+    return text;
+  }
+
+  /**
+   * @return int the number of objects that have been started but not yet ended
+   */
+  int depth() {
+    return depth;
+  }
+
+  /**
+   * helper method to record that an object has just started
+   * @return int START_OBJECT
+   */
+  private int opened() {
+    depth = depth + 1;
+    justOpened = true;
+    token = START_OBJECT;
+    return token;
+  }
+
+  /**
+   * helper method to record that the innermost object has just ended
+   * @return int END_OBJECT
+   */
+  private int closed() {
+    depth = depth - 1;
+    justOpened = false;
+    token = END_OBJECT;
+    return token;
+  }
+}
@@ -0,0 +1,41 @@
+// Copyright 2017 Google Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//    http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.codeu.codingchallenge;
+
+import java.io.IOException;
+import java.io.Reader;
+
+interface JSONEventParser {
+
+  // PARSE (STRING)
+  //
+  // Check that the string is a valid JSON-lite object and report its
+  // contents to the handler as they are read, without building any objects.
+  // If the string is not a valid JSON-lite object, the method should throw an
+  // IOException once the invalid part is reached.
+  void parse(String object, JSONHandler handler) throws IOException;
+
+  // PARSE (READER)
+  //
+  // Same as PARSE (STRING) for characters read from a reader.
+  void parse(Reader object, JSONHandler handler) throws IOException;
+
+  // PARSE (BYTES)
+  //
+  // Same as PARSE (STRING) for length UTF-8 encoded bytes of the array
+  // starting at offset.
+  void parse(byte[] object, int offset, int length, JSONHandler handler) throws IOException;
+}
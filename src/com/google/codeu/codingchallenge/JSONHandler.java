@@ -0,0 +1,43 @@
+// Copyright 2017 Google Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//    http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.codeu.codingchallenge;
+
+import java.io.IOException;
+
+// Receives the contents of a document as it is parsed, in document order,
+// without any objects being built. If the document turns out not to be
+// valid, parsing stops with an IOException after the calls for the part that
+// was read so far.
+interface JSONHandler {
+
+  // START OBJECT
+  //
+  // Called when an object starts. The key is the name the object is stored
+  // under in the enclosing object, or null for the outer object of the
+  // document.
+  void startObject(String key) throws IOException;
+
+  // END OBJECT
+  //
+  // Called when the object started by the matching START OBJECT ends.
+  void endObject() throws IOException;
+
+  // STRING VALUE
+  //
+  // Called for every string value, with the name it is stored under. The
+  // value is only valid during the call; use toString() to keep it.
+  void stringValue(String key, CharSequence value) throws IOException;
+}
@@ -0,0 +1,218 @@
+// Copyright 2017 Google Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//    http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.codeu.codingchallenge;
+
+import java.io.IOException;
+
+/**
+ * purpose of this class is to hide where the characters of a JSON-lite document come from. MyJSONParser reads the
+ * structure of a document one token at a time through nextToken and reads the contents of strings through readString,
+ * readKey or readText, so each kind of input only has to know how to find its next character and how to cut out a
+ * string. Escapes in strings are replaced by the characters they stand for. Other than that strings are kept as written
+ * unless the input is told to drop whitespace inside of them, which is how every string used to be read.
+ */
+abstract class JSONInput {
+  static final String GENERIC_ERROR_MSG = "Invalid JSON-lite object";
+
+  //What can come next at each point of the grammar, named in errors
+  static final String EXPECTED_OBJECT = "'{'";
+  static final String EXPECTED_KEY = "a key";
+  static final String EXPECTED_KEY_OR_END = "a key or '}'";
+  static final String EXPECTED_COLON = "':'";
+  static final String EXPECTED_VALUE = "a string or '{'";
+  static final String EXPECTED_SEPARATOR = "',' or '}'";
+  static final String EXPECTED_END = "nothing after the outer object";
+  static final String EXPECTED_STRING = "a closing quote after valid escapes";
+  static final String EXPECTED_TOKEN = "a string, '{', '}', ':' or ','";
+
+  //Whether whitespace inside of strings is dropped
+  boolean dropWhitespace;
+
+  /**
+   * purpose of this method is to choose whether whitespace inside of strings is dropped from what readString,
+   * readText and readKey return, or kept as written
+   * @param drop boolean
+   */
+  void setDropWhitespace(boolean drop) {
+    dropWhitespace = drop;
+  }
+
+  /**
+   * purpose of this method is to skip any whitespace between tokens and return the next character, or -1 if the end
+   * of the input has been reached
+   * @return int
+   * @throws IOException if the underlying input fails
+   */
+  abstract int nextToken() throws IOException;
+
+  /**
+   * purpose of this method is to tell where the character last returned by nextToken is in the input, so errors can
+   * point at it
+   * @return long the number of characters, or bytes for encoded input, before that character, or the length of the
+   * input if nextToken returned -1
+   */
+  abstract long tokenOffset();
+
+  /**
+   * purpose of this method is to look up a character, or byte for encoded input, that was read earlier so error can
+   * work out which line it is on. Inputs that no longer hold that part of the document return -1.
+   * @param offset long counted the same way as tokenOffset
+   * @return int the character or byte at offset, or -1 if it is not available any more
+   */
+  abstract int unitAt(long offset);
+
+  /**
+   * purpose of this method is to read a string whose opening quote has just been returned by nextToken, up to and
+   * including its closing quote, checking that every \ is followed by an escapable character
+   * @return String the characters between the quotes, with every escape replaced by the character it stands for
+   * @throws IOException if the string is not terminated or contains an invalid escape
+   */
+  abstract String readString() throws IOException;
+
+  /**
+   * purpose of this method is to read a string the same way readString does but return a view of it instead of a
+   * String. The view is only valid until the next call on this input.
+   * @return CharSequence the characters between the quotes
+   * @throws IOException if the string is not terminated or contains an invalid escape
+   */
+  abstract CharSequence readText() throws IOException;
+
+  /**
+   * purpose of this method is to check a string the same way readString does without keeping any of its characters
+   * @throws IOException if the string is not terminated or contains an invalid escape
+   */
+  abstract void skipString() throws IOException;
+
+  /**
+   * purpose of this method is to read a string that is a key, the same way readString does, and return the shared
+   * instance of it from the given table. Inputs that can look the key up before creating a String override this.
+   * @param table KeyTable
+   * @return String the key
+   * @throws IOException if the string is not terminated or contains an invalid escape
+   */
+  String readKey(KeyTable table) throws IOException {
+    return table.intern(readString());
+  }
+
+  /**
+   * helper method to create the exception thrown for input that is not a valid JSON-lite object at the last token
+   * returned by nextToken, or at the opening quote for a string that is not valid
+   * @param expected String one of the EXPECTED_ token classes
+   * @return JSONParseException
+   */
+  JSONParseException error(String expected) {
+    return error(GENERIC_ERROR_MSG, expected);
+  }
+
+  /**
+   * Same as error(String) with a message of its own, for problems other than an unexpected token
+   * @param message String
+   * @param expected String one of the EXPECTED_ token classes or null
+   * @return JSONParseException
+   */
+  JSONParseException error(String message, String expected) {
+    long offset = tokenOffset();
+
+    //Lines are only counted once something has gone wrong, so valid input pays nothing for them
+    long line = 1;
+    long lineStart = 0;
+    for (long i = 0; i < offset; i++) {
+      int c = unitAt(i);
+      if (c == -1) {
+        return new JSONParseException(message, expected, offset, -1, -1);
+      }
+      if (c == '\n') {
+        line = line + 1;
+        lineStart = i + 1;
+      }
+    }
+    return new JSONParseException(message, expected, offset, line, offset - lineStart + 1);
+  }
+
+  /**
+   * helper method for readString. The purpose of this method is to see if the character after a \ is an escapable
+   * character
+   * @param c int
+   * @return boolean
+   */
+  static boolean validEscapedCharacter(int c) {
+    return c == '\\' || c == 'n' || c == 't' || c == '"';
+  }
+
+  /**
+   * helper method to see if a character is whitespace that may appear between tokens
+   * @param c int
+   * @return boolean
+   */
+  static boolean isWhitespace(int c) {
+    return c == ' ' || c == '\n' || c == '\r' || c == '\t' || Character.isWhitespace(c);
+  }
+
+  /**
+   * Purpose of this method is to turn the text of a key or value as written into the string it stands for: every escape
+   * is replaced by the character it stands for and, if asked to, whitespace is dropped. Text without a \ and without
+   * whitespace to drop is returned as it is.
+   * @param value String text whose escapes have already been checked
+   * @param dropWhitespace boolean
+   * @return String
+   */
+  static String unescape(String value, boolean dropWhitespace) {
+    int i = 0;
+    for (; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '\\' || (dropWhitespace && Character.isWhitespace(c))) {
+        break;
+      }
+    }
+    if (i == value.length()) {
+      return value;
+    }
+
+    char[] chars = value.toCharArray();
+    return new String(chars, 0, unescape(chars, i, chars.length, dropWhitespace));
+  }
+
+  /**
+   * Same as unescape(String, boolean) for characters start up to end of an array, which are moved down in place. An
+   * escape is never longer than what it stands for, so the characters always fit.
+   * @param chars char[]
+   * @param start int
+   * @param end int
+   * @param dropWhitespace boolean
+   * @return int the new end
+   */
+  static int unescape(char[] chars, int start, int end, boolean dropWhitespace) {
+    int to = start;
+    for (int from = start; from < end; from++) {
+      char c = chars[from];
+      if (c == '\\') {
+        from = from + 1;
+        c = chars[from];
+        if (c == 'n') {
+          c = '\n';
+        }
+        else if (c == 't') {
+          c = '\t';
+        }
+      }
+      else if (dropWhitespace && Character.isWhitespace(c)) {
+        continue;
+      }
+      chars[to++] = c;
+    }
+    return to;
+  }
+}
@@ -0,0 +1,61 @@
+// Copyright 2017 Google Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//    http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.codeu.codingchallenge;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+interface JSONInputParser {
+
+  // PARSE (READER)
+  //
+  // Read a valid JSON-lite object from the reader and return the parsed
+  // object. Characters are read in small chunks so the document is never held
+  // in memory as a whole. The reader is read up to its end but is not closed.
+  // If the characters are not a valid JSON-lite object, the method should
+  // throw an IOException.
+  JSON parse(Reader object) throws IOException;
+
+  // PARSE (INPUT STREAM)
+  //
+  // Same as PARSE (READER) for a UTF-8 encoded input stream.
+  JSON parse(InputStream object) throws IOException;
+
+  // PARSE (BYTES)
+  //
+  // Read a valid JSON-lite object from length UTF-8 encoded bytes of the
+  // array starting at offset. The bytes are scanned directly; only keys and
+  // values are decoded into Strings. If the bytes are not a valid JSON-lite
+  // object, the method should throw an IOException.
+  JSON parse(byte[] object, int offset, int length) throws IOException;
+
+  // PARSE (BYTE BUFFER)
+  //
+  // Same as PARSE (BYTES) for the bytes between the position and the limit of
+  // a heap or direct buffer. The position of the buffer is not changed.
+  JSON parse(ByteBuffer object) throws IOException;
+
+  // PARSE FILE
+  //
+  // Read a valid JSON-lite object from a UTF-8 encoded file. The file is
+  // memory mapped rather than read onto the heap, in several windows if it is
+  // larger than a single mapping allows. If the file is not a valid JSON-lite
+  // object, the method should throw an IOException.
+  JSON parseFile(Path file) throws IOException;
+}
@@ -0,0 +1,100 @@
+// Copyright 2017 Google Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//    http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.codeu.codingchallenge;
+
+import java.io.IOException;
+
+/**
+ * purpose of this class is to say where a document stops being a valid JSON-lite object and what should have come
+ * there instead. The offset counts characters for text input and bytes for UTF-8 input, from the start of the
+ * document. Line and column count from 1 in the same units; they are -1 if the input no longer held the start of the
+ * document when the problem was found, as happens for long readers and large files.
+ */
+final class JSONParseException extends IOException {
+  private static final long serialVersionUID = 1L;
+
+  private final String expected;
+  private final long offset;
+  private final long line;
+  private final long column;
+
+  /**
+   * @param message String what is wrong
+   * @param expected String what could have come at offset, or null
+   * @param offset long
+   * @param line long or -1 if unknown
+   * @param column long or -1 if unknown
+   */
+  JSONParseException(String message, String expected, long offset, long line, long column) {
+    super(describe(message, expected, offset, line, column));
+    this.expected = expected;
+    this.offset = offset;
+    this.line = line;
+    this.column = column;
+  }
+
+  /**
+   * @return String what could have come where the problem is, such as "':'", or null if the problem is not about what
+   * comes next
+   */
+  public String getExpected() {
+    return expected;
+  }
+
+  /**
+   * @return long where the problem is, counted from the start of the document
+   */
+  public long getOffset() {
+    return offset;
+  }
+
+  /**
+   * @return long the line the problem is on, counting from 1, or -1 if unknown
+   */
+  public long getLine() {
+    return line;
+  }
+
+  /**
+   * @return long where on its line the problem is, counting from 1, or -1 if unknown
+   */
+  public long getColumn() {
+    return column;
+  }
+
+  /**
+   * helper method to build the message of the exception
+   * @param message String
+   * @param expected String
+   * @param offset long
+   * @param line long
+   * @param column long
+   * @return String
+   */
+  private static String describe(String message, String expected, long offset, long line, long column) {
+    StringBuilder builder = new StringBuilder(message);
+    if (expected != null) {
+      builder.append(": expected ").append(expected);
+    }
+    if (line > 0) {
+      builder.append(" at line ").append(line).append(", column ").append(column);
+    }
+    else {
+      builder.append(" at offset ").append(offset);
+    }
+    return builder.toString();
+  }
+}
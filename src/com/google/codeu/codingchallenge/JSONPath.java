@@ -0,0 +1,138 @@
+// Copyright 2017 Google Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//    http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.codeu.codingchallenge;
+
+import java.io.IOException;
+
+/**
+ * purpose of this class is to pick a nested value out of a document by the names leading to it, written as one
+ * string with the names separated by dots, for example "user.name.first". A path is compiled once and can then be
+ * evaluated any number of times, from any number of threads, since it holds nothing but its names.
+ * A path can be evaluated against a JSON tree, or against a JSONCursor while the document is still being read. In
+ * the second case every object that is not on the path is passed over with skipChildren, so nothing in it is
+ * decoded or created. A key that appears more than once in an object has its last value, as with the parsers, so
+ * the objects on the path are always read to their end; the document is not read past the end of the outer object.
+ * Names cannot contain dots.
+ */
+final class JSONPath {
+  private final String path;
+  private final String[] names;
+
+  private JSONPath(String path, String[] names) {
+    this.path = path;
+    this.names = names;
+  }
+
+  /**
+   * purpose of this method is to split a path into the names leading to its value
+   * @param path String names separated by dots
+   * @return JSONPath
+   * @throws IllegalArgumentException if the path is empty or has an empty name
+   */
+  static JSONPath compile(String path) {
+    String[] names = path.split("\\.", -1);
+    for (String name : names) {
+      if (name.isEmpty()) {
+        throw new IllegalArgumentException("empty name in path \"" + path + "\"");
+      }
+    }
+    return new JSONPath(path, names);
+  }
+
+  /**
+   * purpose of this method is to get the string value the path leads to in a tree
+   * @param json JSON the outer object
+   * @return String or null if there is none
+   */
+  String getString(JSON json) {
+    JSON parent = parentOf(json);
+    return parent == null ? null : parent.getString(names[names.length - 1]);
+  }
+
+  /**
+   * purpose of this method is to get the object value the path leads to in a tree
+   * @param json JSON the outer object
+   * @return JSON or null if there is none
+   */
+  JSON getObject(JSON json) {
+    JSON parent = parentOf(json);
+    return parent == null ? null : parent.getObject(names[names.length - 1]);
+  }
+
+  /**
+   * purpose of this method is to get the string value the path leads to from a document being read. The cursor must
+   * not have been moved yet; afterwards it is at the end of the outer object
+   * @param cursor JSONCursor
+   * @return String or null if there is none
+   * @throws IOException if the part of the document that was read is not valid JSON-lite or cannot be read
+   */
+  String readString(JSONCursor cursor) throws IOException {
+    cursor.nextToken();
+    return find(cursor, 0);
+  }
+
+  /**
+   * @return String the path as it was compiled
+   */
+  @Override
+  public String toString() {
+    return path;
+  }
+
+  /**
+   * helper method to follow every name but the last through a tree
+   * @param json JSON
+   * @return JSON the object holding the value, or null if there is none
+   */
+  private JSON parentOf(JSON json) {
+    for (int i = 0; i < names.length - 1 && json != null; i++) {
+      json = json.getObject(names[i]);
+    }
+    return json;
+  }
+
+  /**
+   * helper method to read the rest of the object the cursor has just started, looking for the name at the given
+   * level of the path and going into matching objects
+   * @param cursor JSONCursor
+   * @param level int
+   * @return String the value found, or null if there is none
+   * @throws IOException if the object is not valid JSON-lite or cannot be read
+   */
+  private String find(JSONCursor cursor, int level) throws IOException {
+    boolean last = level == names.length - 1;
+    String found = null;
+    while (true) {
+      int token = cursor.nextToken();
+      if (token == JSONCursor.END_OBJECT) {
+        return found;
+      }
+
+      boolean match = names[level].equals(cursor.currentKey());
+      if (token == JSONCursor.STRING) {
+        if (match && last) {
+          found = cursor.currentString();
+        }
+      }
+      else if (match && !last) {
+        //A later object with the same name replaces this one, even if it does not hold the value
+        found = find(cursor, level + 1);
+      }
+      else {
+        cursor.skipChildren();
+      }
+    }
+  }
+}
@@ -0,0 +1,33 @@
+// Copyright 2017 Google Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//    http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.codeu.codingchallenge;
+
+// Receives the values of one object from JSON.forEach, one call per value,
+// with no collection of names in between. The object must not be changed
+// while it is being visited.
+interface JSONVisitor {
+
+  // STRING
+  //
+  // Called for every string value with the name it is stored under.
+  void visitString(String name, String value);
+
+  // OBJECT
+  //
+  // Called for every nested object with the name it is stored under. The
+  // nested object's own values are not visited unless the visitor calls
+  // forEach on it.
+  void visitObject(String name, JSON value);
+}
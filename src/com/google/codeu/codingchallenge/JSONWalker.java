@@ -0,0 +1,94 @@
+// Copyright 2017 Google Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//    http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.codeu.codingchallenge;
+
+import java.io.IOException;
+
+/**
+ * purpose of this class is to walk a whole tree depth first and report it to a JSONHandler with the same calls a
+ * parse of the tree's text would make: startObject for the tree and for every nested object, stringValue for every
+ * string and endObject when an object is done. Within an object the strings come before the nested objects.
+ * The walk goes through JSON.forEach, so no names are copied and nothing is allocated per value. Each level of
+ * nesting takes one level of the call stack, which is fine for trees within the parser's depth limit.
+ */
+final class JSONWalker implements JSONVisitor {
+  private final JSONHandler handler;
+
+  private JSONWalker(JSONHandler handler) {
+    this.handler = handler;
+  }
+
+  /**
+   * purpose of this method is to report every value of the tree to the handler, depth first
+   * @param json JSON the outer object, reported with a null key
+   * @param handler JSONHandler
+   * @throws IOException if the handler throws it; the walk stops there
+   */
+  static void walk(JSON json, JSONHandler handler) throws IOException {
+    JSONWalker walker = new JSONWalker(handler);
+    try {
+      walker.visitObject(null, json);
+    } catch (HandlerException ex) {
+      throw ex.getCause();
+    }
+  }
+
+  /**
+   *
+   * @param name String
+   * @param value String
+   */
+  @Override
+  public void visitString(String name, String value) {
+    try {
+      handler.stringValue(name, value);
+    } catch (IOException ex) {
+      throw new HandlerException(ex);
+    }
+  }
+
+  /**
+   *
+   * @param name String
+   * @param value JSON
+   */
+  @Override
+  public void visitObject(String name, JSON value) {
+    try {
+      handler.startObject(name);
+      value.forEach(this);
+      handler.endObject();
+    } catch (IOException ex) {
+      throw new HandlerException(ex);
+    }
+  }
+
+  /**
+   * purpose of this class is to carry an IOException thrown by the handler out through forEach, which does not
+   * declare it
+   */
+  private static final class HandlerException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    HandlerException(IOException cause) {
+      super(cause);
+    }
+
+    @Override
+    public synchronized IOException getCause() {
+      return (IOException) super.getCause();
+    }
+  }
+}
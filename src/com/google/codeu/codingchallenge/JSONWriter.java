@@ -0,0 +1,407 @@
+// Copyright 2017 Google Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//    http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.codeu.codingchallenge;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * purpose of this class is to write a JSON object out as JSON-lite text, either compact with no whitespace at all or
+ * pretty with every key value pair on a line of its own. The characters \, ", newline and tab are escaped as \\, \",
+ * \n and \t, the only escapes a JSON-lite string may contain. String values of an object are written before its
+ * nested objects.
+ * Text is put together in a reusable char buffer and handed to the target a buffer at a time; for an OutputStream or
+ * a ByteBuffer it is encoded to UTF-8 straight from there. Objects are walked with an explicit stack, like the parser
+ * uses, so deeply nested objects do not use up the call stack. Because the buffers are reused a writer must only be
+ * used by one thread at a time.
+ */
+final class JSONWriter {
+  private static final int BUFFER_SIZE = 4096;
+  private static final int INITIAL_FRAMES = 16;
+
+  //Number of spaces each level of nesting is indented by, 0 for compact output
+  private final int indent;
+
+  //Text waiting to be handed to the target, and the same text encoded as UTF-8 for byte targets
+  private final char[] chars = new char[BUFFER_SIZE];
+  private int length;
+  private final byte[] bytes = new byte[BUFFER_SIZE * 3];
+  private final TextView view = new TextView();
+
+  //Where the text goes during a call to write; only one of them is set
+  private Appendable appendable;
+  private Writer writer;
+  private OutputStream stream;
+  private ByteBuffer buffer;
+
+  //For every object being written: the object, the names of its strings followed by those of its objects, how many
+  //of the names are strings, how many names have been looked at and whether a pair has been written yet
+  private JSON[] objects = new JSON[INITIAL_FRAMES];
+  private final List<List<String>> names = new ArrayList<>();
+  private int[] stringCounts = new int[INITIAL_FRAMES];
+  private int[] next = new int[INITIAL_FRAMES];
+  private boolean[] written = new boolean[INITIAL_FRAMES];
+  private int depth;
+
+  /**
+   * Creates a writer for compact output
+   */
+  public JSONWriter() {
+    this(0);
+  }
+
+  /**
+   * Creates a writer that puts every key value pair on a line of its own, indented by the given number of spaces for
+   * each level of nesting, or writes compact output if indent is 0
+   * @param indent int
+   */
+  public JSONWriter(int indent) {
+    if (indent < 0) {
+      throw new IllegalArgumentException("indent must not be negative");
+    }
+    this.indent = indent;
+  }
+
+  /**
+   * purpose of this method is to write the given object as a String
+   * @param json JSON
+   * @return String
+   */
+  public String write(JSON json) {
+    StringBuilder builder = new StringBuilder();
+    try {
+      write(json, builder);
+    } catch (IOException ex) {
+      //A StringBuilder cannot fail to be appended to
+      throw new IllegalStateException(ex);
+    }
+    return builder.toString();
+  }
+
+  /**
+   * purpose of this method is to append the given object to out
+   * @param json JSON
+   * @param out Appendable
+   * @throws IOException if out fails
+   */
+  public void write(JSON json, Appendable out) throws IOException {
+    if (out instanceof Writer) {
+      write(json, (Writer) out);
+      return;
+    }
+    appendable = out;
+    try {
+      writeObjects(json);
+    } finally {
+      appendable = null;
+    }
+  }
+
+  /**
+   * Same as write(JSON, Appendable) but hands whole buffers of characters to out
+   * @param json JSON
+   * @param out Writer
+   * @throws IOException if out fails
+   */
+  public void write(JSON json, Writer out) throws IOException {
+    writer = out;
+    try {
+      writeObjects(json);
+    } finally {
+      writer = null;
+    }
+  }
+
+  /**
+   * purpose of this method is to write the given object to out encoded as UTF-8
+   * @param json JSON
+   * @param out OutputStream
+   * @throws IOException if out fails
+   */
+  public void write(JSON json, OutputStream out) throws IOException {
+    stream = out;
+    try {
+      writeObjects(json);
+    } finally {
+      stream = null;
+    }
+  }
+
+  /**
+   * purpose of this method is to put the given object into out encoded as UTF-8, starting at its position and moving
+   * the position past what was written
+   * @param json JSON
+   * @param out ByteBuffer
+   * @throws java.nio.BufferOverflowException if out does not have room for the whole object
+   */
+  public void write(JSON json, ByteBuffer out) {
+    buffer = out;
+    try {
+      writeObjects(json);
+    } catch (IOException ex) {
+      //A ByteBuffer cannot fail to be written to, it can only run out of room
+      throw new IllegalStateException(ex);
+    } finally {
+      buffer = null;
+    }
+  }
+
+  /**
+   * purpose of this method is to write the given object, and all objects nested in it, to the current target
+   * @param json JSON
+   * @throws IOException if the target fails
+   */
+  private void writeObjects(JSON json) throws IOException {
+    length = 0;
+    try {
+      open(json);
+      while (depth > 0) {
+        int frame = depth - 1;
+        List<String> frameNames = names.get(frame);
+        int i = next[frame];
+        if (i == frameNames.size()) {
+          if (written[frame]) {
+            newLine(frame);
+          }
+          put('}');
+          objects[frame] = null;
+          depth = depth - 1;
+          continue;
+        }
+        next[frame] = i + 1;
+
+        //Names without a value are left out
+        String name = frameNames.get(i);
+        String value = i < stringCounts[frame] ? objects[frame].getString(name) : null;
+        JSON child = i < stringCounts[frame] ? null : objects[frame].getObject(name);
+        if (value == null && child == null) {
+          continue;
+        }
+
+        if (written[frame]) {
+          put(',');
+        }
+        written[frame] = true;
+        newLine(frame + 1);
+        putString(name);
+        put(':');
+        if (indent > 0) {
+          put(' ');
+        }
+        if (value != null) {
+          putString(value);
+        }
+        else {
+          open(child);
+        }
+      }
+      flush(true);
+    } finally {
+      while (depth > 0) {
+        depth = depth - 1;
+        objects[depth] = null;
+      }
+    }
+  }
+
+  /**
+   * helper method to start writing an object, keeping it on the stack until all of its pairs have been written
+   * @param json JSON
+   * @throws IOException if the target fails
+   */
+  private void open(JSON json) throws IOException {
+    if (depth == objects.length) {
+      objects = Arrays.copyOf(objects, depth * 2);
+      stringCounts = Arrays.copyOf(stringCounts, depth * 2);
+      next = Arrays.copyOf(next, depth * 2);
+      written = Arrays.copyOf(written, depth * 2);
+    }
+    if (depth == names.size()) {
+      names.add(new ArrayList<String>());
+    }
+    List<String> frameNames = names.get(depth);
+    frameNames.clear();
+    json.getStrings(frameNames);
+    stringCounts[depth] = frameNames.size();
+    json.getObjects(frameNames);
+    objects[depth] = json;
+    next[depth] = 0;
+    written[depth] = false;
+    depth = depth + 1;
+    put('{');
+  }
+
+  /**
+   * helper method to start a new line indented for the given level of nesting, if the output is pretty
+   * @param level int
+   * @throws IOException if the target fails
+   */
+  private void newLine(int level) throws IOException {
+    if (indent == 0) {
+      return;
+    }
+    put('\n');
+    for (int i = level * indent; i > 0; i--) {
+      put(' ');
+    }
+  }
+
+  /**
+   * helper method to write a string in quotes, escaping the characters that have to be escaped. Runs of characters
+   * that need no escaping are copied in one go.
+   * @param value String
+   * @throws IOException if the target fails
+   */
+  private void putString(String value) throws IOException {
+    put('"');
+    int start = 0;
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      char escaped;
+      if (c == '\\' || c == '"') {
+        escaped = c;
+      }
+      else if (c == '\n') {
+        escaped = 'n';
+      }
+      else if (c == '\t') {
+        escaped = 't';
+      }
+      else {
+        continue;
+      }
+      put(value, start, i);
+      put('\\');
+      put(escaped);
+      start = i + 1;
+    }
+    put(value, start, value.length());
+    put('"');
+  }
+
+  /**
+   * helper method to add one character to the buffer
+   * @param c char
+   * @throws IOException if the target fails
+   */
+  private void put(char c) throws IOException {
+    if (length == chars.length) {
+      flush(false);
+    }
+    chars[length++] = c;
+  }
+
+  /**
+   * helper method to add characters start up to end of value to the buffer
+   * @param value String
+   * @param start int
+   * @param end int
+   * @throws IOException if the target fails
+   */
+  private void put(String value, int start, int end) throws IOException {
+    while (start < end) {
+      if (length == chars.length) {
+        flush(false);
+      }
+      int count = Math.min(end - start, chars.length - length);
+      value.getChars(start, start + count, chars, length);
+      length = length + count;
+      start = start + count;
+    }
+  }
+
+  /**
+   * helper method to hand the buffer to the target. A high surrogate at the end of a full buffer is kept back until
+   * the rest of its character has been added, so it can be encoded as one.
+   * @param end boolean true if nothing more will be added
+   * @throws IOException if the target fails
+   */
+  private void flush(boolean end) throws IOException {
+    if (appendable instanceof StringBuilder) {
+      ((StringBuilder) appendable).append(chars, 0, length);
+      length = 0;
+    }
+    else if (appendable != null) {
+      appendable.append(view.set(chars, 0, length));
+      view.set((CharSequence) null, 0, 0);
+      length = 0;
+    }
+    else if (writer != null) {
+      writer.write(chars, 0, length);
+      length = 0;
+    }
+    else {
+      boolean keep = !end && length > 0 && Character.isHighSurrogate(chars[length - 1]);
+      int count = encode(keep ? length - 1 : length);
+      if (stream != null) {
+        stream.write(bytes, 0, count);
+      }
+      else {
+        buffer.put(bytes, 0, count);
+      }
+      if (keep) {
+        chars[0] = chars[length - 1];
+        length = 1;
+      }
+      else {
+        length = 0;
+      }
+    }
+  }
+
+  /**
+   * helper method to encode the first count characters of the buffer as UTF-8. A surrogate that is not part of a pair
+   * is written as a question mark, as String.getBytes does.
+   * @param count int
+   * @return int the number of bytes
+   */
+  private int encode(int count) {
+    int size = 0;
+    for (int i = 0; i < count; i++) {
+      char c = chars[i];
+      if (c < 0x80) {
+        bytes[size++] = (byte) c;
+      }
+      else if (c < 0x800) {
+        bytes[size++] = (byte) (0xC0 | (c >> 6));
+        bytes[size++] = (byte) (0x80 | (c & 0x3F));
+      }
+      else if (Character.isSurrogate(c)) {
+        if (Character.isHighSurrogate(c) && i + 1 < count && Character.isLowSurrogate(chars[i + 1])) {
+          int codePoint = Character.toCodePoint(c, chars[++i]);
+          bytes[size++] = (byte) (0xF0 | (codePoint >> 18));
+          bytes[size++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+          bytes[size++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+          bytes[size++] = (byte) (0x80 | (codePoint & 0x3F));
+        }
+        else {
+          bytes[size++] = '?';
+        }
+      }
+      else {
+        bytes[size++] = (byte) (0xE0 | (c >> 12));
+        bytes[size++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+        bytes[size++] = (byte) (0x80 | (c & 0x3F));
+      }
+    }
+    return size;
+  }
+}
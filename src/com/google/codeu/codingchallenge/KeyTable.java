@@ -0,0 +1,233 @@
+// Copyright 2017 Google Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//    http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.codeu.codingchallenge;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * purpose of this class is to hand out one shared String for each key name, so the many objects parsed from documents
+ * that reuse the same keys also share the key strings, and map lookups with those keys find equal keys by identity.
+ * A parser looks a key up while it is still a range of characters in its input; the hash is computed from that range
+ * the same way String.hashCode does it, so a key that is already in the table costs no allocation at all.
+ * The table has a fixed number of slots. Each key may go in one of PROBES slots after its hash; when they are all
+ * taken the first of them is replaced, so the table never holds more than its capacity.
+ * A table can be shared by any number of threads and parsers without locking. Slots are written without
+ * synchronization, which is safe because Strings are immutable; the worst a race can do is let two equal keys be
+ * handed out as different instances for a while.
+ */
+final class KeyTable {
+  static final int DEFAULT_CAPACITY = 4096;
+
+  //Longer keys are rarely repeated and would only push out useful ones
+  static final int MAX_KEY_LENGTH = 64;
+
+  private static final int PROBES = 4;
+
+  private final String[] slots;
+  private final int mask;
+
+  KeyTable() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Creates a table that holds at most the given number of keys, rounded up to a power of two
+   * @param capacity int
+   */
+  KeyTable(int capacity) {
+    if (capacity < 1 || capacity > 1 << 30) {
+      throw new IllegalArgumentException("capacity must be between 1 and 2^30");
+    }
+    int size = 1;
+    while (size < capacity) {
+      size = size << 1;
+    }
+    slots = new String[size];
+    mask = slots.length - 1;
+  }
+
+  /**
+   * purpose of this method is to get the shared instance of the given key, adding it if there is none yet
+   * @param key String
+   * @return String
+   */
+  String intern(String key) {
+    if (key.length() > MAX_KEY_LENGTH) {
+      return key;
+    }
+    int hash = key.hashCode();
+    for (int i = 0; i < PROBES; i++) {
+      String slot = slots[(spread(hash) + i) & mask];
+      if (slot == null) {
+        break;
+      }
+      if (slot.hashCode() == hash && slot.equals(key)) {
+        return slot;
+      }
+    }
+
+    return add(hash, key);
+  }
+
+  /**
+   * purpose of this method is to get the shared instance of the key made of the characters from start up to end of
+   * the given sequence, only creating a String for it if it is not in the table yet
+   * @param chars CharSequence
+   * @param start int
+   * @param end int
+   * @return String
+   */
+  String intern(CharSequence chars, int start, int end) {
+    int length = end - start;
+    if (length > MAX_KEY_LENGTH) {
+      return chars.subSequence(start, end).toString();
+    }
+    int hash = 0;
+    for (int i = start; i < end; i++) {
+      hash = 31 * hash + chars.charAt(i);
+    }
+
+    for (int i = 0; i < PROBES; i++) {
+      String slot = slots[(spread(hash) + i) & mask];
+      if (slot == null) {
+        break;
+      }
+      if (slot.hashCode() == hash && slot.length() == length && regionEquals(slot, chars, start)) {
+        return slot;
+      }
+    }
+
+    return add(hash, chars.subSequence(start, end).toString());
+  }
+
+  /**
+   * Same as intern(CharSequence, int, int) for the characters from start up to end of an array
+   * @param chars char[]
+   * @param start int
+   * @param end int
+   * @return String
+   */
+  String intern(char[] chars, int start, int end) {
+    int length = end - start;
+    if (length > MAX_KEY_LENGTH) {
+      return new String(chars, start, length);
+    }
+    int hash = 0;
+    for (int i = start; i < end; i++) {
+      hash = 31 * hash + chars[i];
+    }
+
+    for (int i = 0; i < PROBES; i++) {
+      String slot = slots[(spread(hash) + i) & mask];
+      if (slot == null) {
+        break;
+      }
+      if (slot.hashCode() == hash && slot.length() == length) {
+        int j = 0;
+        while (j < length && slot.charAt(j) == chars[start + j]) {
+          j = j + 1;
+        }
+        if (j == length) {
+          return slot;
+        }
+      }
+    }
+
+    return add(hash, new String(chars, start, length));
+  }
+
+  /**
+   * Same as intern(CharSequence, int, int) for bytes from start up to end of an array that are all ASCII, so every
+   * byte is one character
+   * @param ascii byte[]
+   * @param start int
+   * @param end int
+   * @return String
+   */
+  String intern(byte[] ascii, int start, int end) {
+    int length = end - start;
+    if (length > MAX_KEY_LENGTH) {
+      return new String(ascii, start, length, StandardCharsets.ISO_8859_1);
+    }
+    int hash = 0;
+    for (int i = start; i < end; i++) {
+      hash = 31 * hash + ascii[i];
+    }
+
+    for (int i = 0; i < PROBES; i++) {
+      String slot = slots[(spread(hash) + i) & mask];
+      if (slot == null) {
+        break;
+      }
+      if (slot.hashCode() == hash && slot.length() == length) {
+        int j = 0;
+        while (j < length && slot.charAt(j) == ascii[start + j]) {
+          j = j + 1;
+        }
+        if (j == length) {
+          return slot;
+        }
+      }
+    }
+
+    return add(hash, new String(ascii, start, length, StandardCharsets.ISO_8859_1));
+  }
+
+  /**
+   * helper method to store a key that was not found in the first free slot after its hash, or in place of the first
+   * one if none is free
+   * @param hash int
+   * @param key String
+   * @return String key
+   */
+  private String add(int hash, String key) {
+    int first = spread(hash) & mask;
+    for (int i = 0; i < PROBES; i++) {
+      int index = (first + i) & mask;
+      if (slots[index] == null) {
+        slots[index] = key;
+        return key;
+      }
+    }
+    slots[first] = key;
+    return key;
+  }
+
+  /**
+   * helper method to see if a key is the same as the characters of chars starting at start
+   * @param key String
+   * @param chars CharSequence
+   * @param start int
+   * @return boolean
+   */
+  private static boolean regionEquals(String key, CharSequence chars, int start) {
+    for (int i = 0; i < key.length(); i++) {
+      if (key.charAt(i) != chars.charAt(start + i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * helper method to mix the high bits of a hash into the low bits used to pick a slot
+   * @param hash int
+   * @return int
+   */
+  private static int spread(int hash) {
+    return hash ^ (hash >>> 16);
+  }
+}
@@ -0,0 +1,328 @@
+// Copyright 2017 Google Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//    http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.codeu.codingchallenge;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * purpose of this class is to implement the JSON interface on top of the original text of a document. LazyJSONParser
+ * only records where every key and value starts and ends; a LazyJSON object looks its keys up in place in the text
+ * and only turns a value into a String, or a nested object into a LazyJSON, the first time it is asked for. Reading a
+ * few keys of a large document therefore costs about as much as those keys and values, not the whole document.
+ * Changing an object copies its own key value pairs into a MyJSON first, which is used from then on. Nested objects
+ * stay lazy.
+ * A document can be read from any number of threads at once, as it is when CachingJSONParser hands it out: the tape
+ * never changes after parsing, and two threads that race to create the same key or value each store an equivalent one.
+ * Like MyJSON, an object must not be changed while other threads use it.
+ */
+final class LazyJSON implements JSON {
+
+  /**
+   * purpose of this class is to hold the text of a parsed document together with the entries recorded for it. Every
+   * key value pair is one entry of ENTRY_SIZE ints in tape, in the order the pairs appear in the text, so the entries
+   * of a nested object directly follow the entry of the pair that holds it.
+   */
+  static final class Document {
+    //Offsets of the ints that make up an entry
+    static final int KEY_START = 0;
+    static final int KEY_END = 1;
+    static final int VALUE_START = 2; //For an object, the index of its opening brace
+    static final int VALUE_END = 3;   //For an object, the index after its closing brace
+    static final int NEXT = 4;        //Index of the entry after this one and everything nested in it
+    static final int FLAGS = 5;
+    static final int ENTRY_SIZE = 6;
+
+    static final int OBJECT = 1;            //The value is an object
+    static final int KEY_ENCODED = 2;    //The key contains escapes or whitespace that has to be dropped
+    static final int VALUE_ENCODED = 4;  //The value is a string that contains escapes or whitespace to be dropped
+    static final int OVERRIDDEN = 8;     //A later entry of the same object has the same key and kind of value
+
+    private final String text;
+    private final int[] tape;
+    private final int entries;
+
+    //Whether whitespace inside of keys and values is dropped
+    private final boolean dropWhitespace;
+
+    //The values and keys that have been asked for so far, by entry. Allocated up front so they are safely published
+    //with the document
+    private final Object[] values;
+    private final String[] keys;
+
+    Document(String text, int[] tape, int entries, boolean dropWhitespace) {
+      this.text = text;
+      this.tape = tape;
+      this.entries = entries;
+      this.dropWhitespace = dropWhitespace;
+      values = new Object[entries];
+      keys = new String[entries];
+    }
+
+    /**
+     * @return LazyJSON the outer object of the document
+     */
+    LazyJSON root() {
+      return new LazyJSON(this, 0, entries);
+    }
+
+    /**
+     * helper method to get one of the ints of an entry
+     * @param entry int
+     * @param field int
+     * @return int
+     */
+    int get(int entry, int field) {
+      return tape[entry * ENTRY_SIZE + field];
+    }
+
+    /**
+     * helper method to see if the key of the given entry is the given name, without creating the key
+     * @param entry int
+     * @param name String
+     * @return boolean
+     */
+    boolean keyEquals(int entry, String name) {
+      int start = get(entry, KEY_START);
+      int length = get(entry, KEY_END) - start;
+      if ((get(entry, FLAGS) & KEY_ENCODED) != 0) {
+        return key(entry).equals(name);
+      }
+      return length == name.length() && text.regionMatches(start, name, 0, length);
+    }
+
+    /**
+     * @param entry int
+     * @return String the key of the given entry, created the first time it is asked for
+     */
+    String key(int entry) {
+      String key = keys[entry];
+      if (key == null) {
+        key = text.substring(get(entry, KEY_START), get(entry, KEY_END));
+        if ((get(entry, FLAGS) & KEY_ENCODED) != 0) {
+          key = JSONInput.unescape(key, dropWhitespace);
+        }
+        keys[entry] = key;
+      }
+      return key;
+    }
+
+    /**
+     * @param entry int
+     * @return String the string value of the given entry, created the first time it is asked for
+     */
+    String string(int entry) {
+      Object value = values[entry];
+      if (value == null) {
+        String string = text.substring(get(entry, VALUE_START), get(entry, VALUE_END));
+        value = (get(entry, FLAGS) & VALUE_ENCODED) != 0 ? JSONInput.unescape(string, dropWhitespace) : string;
+        values[entry] = value;
+      }
+      return (String) value;
+    }
+
+    /**
+     * @param entry int
+     * @return LazyJSON the object value of the given entry, created the first time it is asked for
+     */
+    LazyJSON object(int entry) {
+      Object value = values[entry];
+      if (value == null) {
+        value = new LazyJSON(this, entry + 1, get(entry, NEXT));
+        values[entry] = value;
+      }
+      return (LazyJSON) value;
+    }
+  }
+
+  private final Document document;
+
+  //The entries of this object's own key value pairs are first, first + 1 and so on, jumping over the entries nested
+  //in object values, up to end
+  private final int first;
+  private final int end;
+
+  //Once this object has been changed, all calls go to this copy
+  private MyJSON changed;
+
+  LazyJSON(Document document, int first, int end) {
+    this.document = document;
+    this.first = first;
+    this.end = end;
+  }
+
+  /**
+   *
+   * @param name String
+   * @return JSON
+   */
+  @Override
+  public JSON getObject(String name) {
+    if (changed != null) {
+      return changed.getObject(name);
+    }
+    int entry = find(name, true);
+    return entry < 0 ? null : document.object(entry);
+  }
+
+  /**
+   *
+   * @param name String
+   * @param value JSON
+   * @return JSON
+   */
+  @Override
+  public JSON setObject(String name, JSON value) {
+    change().setObject(name, value);
+    return this;
+  }
+
+  /**
+   *
+   * @param name String
+   * @return String
+   */
+  @Override
+  public String getString(String name) {
+    if (changed != null) {
+      return changed.getString(name);
+    }
+    int entry = find(name, false);
+    return entry < 0 ? null : document.string(entry);
+  }
+
+  /**
+   *
+   * @param name String
+   * @param value String
+   * @return JSON
+   */
+  @Override
+  public JSON setString(String name, String value) {
+    change().setString(name, value);
+    return this;
+  }
+
+  /**
+   *
+   * @param names Collection<String>
+   */
+  @Override
+  public void getObjects(Collection<String> names) {
+    if (changed != null) {
+      changed.getObjects(names);
+    }
+    else {
+      names.addAll(keys(true));
+    }
+  }
+
+  /**
+   *
+   * @param names Collection<String>
+   */
+  @Override
+  public void getStrings(Collection<String> names) {
+    if (changed != null) {
+      changed.getStrings(names);
+    }
+    else {
+      names.addAll(keys(false));
+    }
+  }
+
+  /**
+   *
+   * @param visitor JSONVisitor
+   */
+  @Override
+  public void forEach(JSONVisitor visitor) {
+    if (changed != null) {
+      changed.forEach(visitor);
+      return;
+    }
+    for (int entry = first; entry < end; entry = document.get(entry, Document.NEXT)) {
+      if ((document.get(entry, Document.FLAGS) & (Document.OBJECT | Document.OVERRIDDEN)) == 0) {
+        visitor.visitString(document.key(entry), document.string(entry));
+      }
+    }
+    for (int entry = first; entry < end; entry = document.get(entry, Document.NEXT)) {
+      if ((document.get(entry, Document.FLAGS) & (Document.OBJECT | Document.OVERRIDDEN)) == Document.OBJECT) {
+        visitor.visitObject(document.key(entry), document.object(entry));
+      }
+    }
+  }
+
+
+  /**
+   * helper method to find the entry of the key value pair with the given name and kind of value. As in MyJSON a key
+   * that appears more than once has the last value given to it; the parser has flagged every earlier one as
+   * overridden, so the first match that is not flagged is the one.
+   * @param name String
+   * @param object boolean true to look for an object value, false for a string value
+   * @return int the entry or -1 if there is none
+   */
+  private int find(String name, boolean object) {
+    int wanted = object ? Document.OBJECT : 0;
+    for (int entry = first; entry < end; entry = document.get(entry, Document.NEXT)) {
+      if ((document.get(entry, Document.FLAGS) & (Document.OBJECT | Document.OVERRIDDEN)) == wanted
+          && document.keyEquals(entry, name)) {
+        return entry;
+      }
+    }
+
+    return -1;
+  }
+
+  /**
+   * helper method to get the names of all the values of one kind, each name once
+   * @param object boolean true for object values, false for string values
+   * @return Set<String>
+   */
+  private Set<String> keys(boolean object) {
+    Set<String> keys = new LinkedHashSet<>();
+    for (int entry = first; entry < end; entry = document.get(entry, Document.NEXT)) {
+      boolean isObject = (document.get(entry, Document.FLAGS) & Document.OBJECT) != 0;
+      if (isObject == object) {
+        keys.add(document.key(entry));
+      }
+    }
+
+    return keys;
+  }
+
+  /**
+   * helper method to copy this object's key value pairs into the MyJSON that takes over once it is changed
+   * @return MyJSON
+   */
+  private MyJSON change() {
+    if (changed == null) {
+      MyJSON copy = new MyJSON();
+      for (int entry = first; entry < end; entry = document.get(entry, Document.NEXT)) {
+        if ((document.get(entry, Document.FLAGS) & Document.OBJECT) != 0) {
+          copy.setObject(document.key(entry), document.object(entry));
+        }
+        else {
+          copy.setString(document.key(entry), document.string(entry));
+        }
+      }
+      changed = copy;
+    }
+
+    return changed;
+  }
+}
@@ -0,0 +1,318 @@
+// Copyright 2017 Google Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//    http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.codeu.codingchallenge;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * purpose of this class is to implement the JSONParser interface for callers that only read a few values of large
+ * documents. The document is checked completely while it is scanned, the same way MyJSONParser checks it, but instead
+ * of building objects the scan only records where each key and value starts and ends. The returned LazyJSON creates
+ * strings and nested objects from those offsets when they are first asked for. When an object closes, every entry whose
+ * key and kind of value appear again later in the same object is flagged as overridden, so LazyJSON never has to
+ * search for the last one.
+ * Each call keeps its state in its own Scan, so one parser can be shared by any number of threads. Unlike MyJSONParser
+ * there is nothing worth keeping between calls: the tape belongs to the returned document.
+ */
+final class LazyJSONParser implements JSONParser {
+  private static final int INITIAL_FRAMES = 16;
+
+  //Deepest nesting that will be accepted, the outer object is at depth 1
+  private final int maxDepth;
+
+  //Whether whitespace inside of keys and values is dropped instead of kept as written
+  private final boolean stripWhitespace;
+
+  /**
+   * Creates a parser that accepts objects nested up to MyJSONParser.DEFAULT_MAX_DEPTH levels deep
+   */
+  public LazyJSONParser() {
+    this(MyJSONParser.DEFAULT_MAX_DEPTH);
+  }
+
+  /**
+   * Creates a parser that accepts objects nested up to the given number of levels deep
+   * @param maxDepth int
+   */
+  public LazyJSONParser(int maxDepth) {
+    this(maxDepth, false);
+  }
+
+  /**
+   * Creates a parser that accepts objects nested up to the given number of levels deep and, if stripWhitespace is set,
+   * drops all whitespace inside of keys and values the way MyJSONParser can
+   * @param maxDepth int
+   * @param stripWhitespace boolean
+   */
+  public LazyJSONParser(int maxDepth, boolean stripWhitespace) {
+    if (maxDepth < 1) {
+      throw new IllegalArgumentException("maxDepth must be at least 1");
+    }
+    this.maxDepth = maxDepth;
+    this.stripWhitespace = stripWhitespace;
+  }
+
+  /**
+   * Method overriden from interface. The purpose of this method is to check that the given string is a JSON-lite
+   * object and return a LazyJSON that reads its values from the string when they are asked for.
+   * @param in String (represents the potential valid JSON-lite object)
+   * @return JSON
+   * @throws IOException if in is not valid JSON-lite object then throw IOException
+   */
+  @Override
+  public JSON parse(String in) throws IOException {
+    return new Scan().parse(in);
+  }
+
+  /**
+   * purpose of this class is to hold the state of a single call to parse
+   */
+  private final class Scan {
+    //Entries of the objects that are still open, so the end of each can be filled in when it closes
+    private int[] open = new int[Math.min(INITIAL_FRAMES, maxDepth)];
+
+    private final StringInput input = new StringInput();
+
+    //Entries recorded so far for the document being parsed
+    private String text;
+    private int[] tape;
+    private int entries;
+
+    //Open addressing table of the entries of the object being checked for repeated keys, -1 where empty
+    private int[] seen = new int[16];
+
+    Scan() {
+      input.setDropWhitespace(stripWhitespace);
+    }
+
+    /**
+     * purpose of this method is to scan the given string and return the outer object of the document
+     * @param in String
+     * @return JSON
+     * @throws IOException if in is not valid JSON-lite object
+     */
+    JSON parse(String in) throws IOException {
+      input.reset(in);
+      text = in;
+      tape = new int[LazyJSON.Document.ENTRY_SIZE * (in.length() / 32 + 4)];
+      entries = 0;
+      if (input.nextToken() != '{') {
+        throw input.error(JSONInput.EXPECTED_OBJECT);
+      }
+      scanObjects();
+      if (input.nextToken() != -1) {
+        throw input.error(JSONInput.EXPECTED_END);
+      }
+
+      return new LazyJSON.Document(in, tape, entries, stripWhitespace).root();
+    }
+
+    /**
+     * purpose of this method is to check the outer object, whose opening brace has just been consumed, and record an
+     * entry for every key value pair in it, nested ones included
+     * @throws IOException if the object is not a valid JSON-lite object
+     */
+    private void scanObjects() throws IOException {
+      int depth = 1;
+      boolean justOpened = true;
+      while (true) {
+        int c = input.nextToken();
+
+        //Right after an opening brace the object may be empty, otherwise a key value pair has to follow
+        if (c != '}' || !justOpened) {
+          if (c != '"') {
+            throw input.error(justOpened ? JSONInput.EXPECTED_KEY_OR_END : JSONInput.EXPECTED_KEY);
+          }
+          input.skipString();
+          int entry = addEntry();
+          set(entry, LazyJSON.Document.KEY_START, input.stringStart());
+          set(entry, LazyJSON.Document.KEY_END, input.stringEnd());
+          int flags = input.stringEncoded() ? LazyJSON.Document.KEY_ENCODED : 0;
+          if (input.nextToken() != ':') {
+            throw input.error(JSONInput.EXPECTED_COLON);
+          }
+
+          c = input.nextToken();
+          if (c == '{') {
+            if (depth == maxDepth) {
+              throw input.error(MyJSONParser.DEPTH_ERROR_MSG, null);
+            }
+            if (depth == open.length) {
+              open = Arrays.copyOf(open, (int) Math.min((long) open.length * 2, maxDepth));
+            }
+            open[depth++] = entry;
+            set(entry, LazyJSON.Document.VALUE_START, input.position() - 1);
+            set(entry, LazyJSON.Document.FLAGS, flags | LazyJSON.Document.OBJECT);
+            justOpened = true;
+            continue;
+          }
+          if (c != '"') {
+            throw input.error(JSONInput.EXPECTED_VALUE);
+          }
+          input.skipString();
+          set(entry, LazyJSON.Document.VALUE_START, input.stringStart());
+          set(entry, LazyJSON.Document.VALUE_END, input.stringEnd());
+          set(entry, LazyJSON.Document.NEXT, entry + 1);
+          if (input.stringEncoded()) {
+            flags = flags | LazyJSON.Document.VALUE_ENCODED;
+          }
+          set(entry, LazyJSON.Document.FLAGS, flags);
+          c = input.nextToken();
+        }
+
+        //Every closing brace finishes the innermost open object, whose entry now knows where it ends
+        while (c == '}') {
+          depth = depth - 1;
+          if (depth == 0) {
+            markOverrides(0, entries);
+            return;
+          }
+          set(open[depth], LazyJSON.Document.VALUE_END, input.position());
+          set(open[depth], LazyJSON.Document.NEXT, entries);
+          markOverrides(open[depth] + 1, entries);
+          c = input.nextToken();
+        }
+
+        if (c != ',') {
+          throw input.error(JSONInput.EXPECTED_SEPARATOR);
+        }
+        justOpened = false;
+      }
+    }
+
+    /**
+     * helper method to flag every entry of an object that has just closed whose key and kind of value appear again
+     * later in it. Each object is checked once, when it closes, so every entry of the document is looked at once.
+     * @param first int the first entry of the object's own key value pairs
+     * @param end int the entry after the object's last one
+     */
+    private void markOverrides(int first, int end) {
+      int count = 0;
+      for (int entry = first; entry < end; entry = get(entry, LazyJSON.Document.NEXT)) {
+        count = count + 1;
+      }
+      if (count < 2) {
+        return;
+      }
+
+      //At most half full, so probe runs stay short
+      int capacity = Integer.highestOneBit(count) << 2;
+      if (capacity > seen.length) {
+        seen = new int[capacity];
+      }
+      Arrays.fill(seen, 0, capacity, -1);
+      int mask = capacity - 1;
+      for (int entry = first; entry < end; entry = get(entry, LazyJSON.Document.NEXT)) {
+        int slot = keyHash(entry) & mask;
+        while (seen[slot] >= 0 && !sameKey(seen[slot], entry)) {
+          slot = (slot + 1) & mask;
+        }
+        if (seen[slot] >= 0) {
+          set(seen[slot], LazyJSON.Document.FLAGS, get(seen[slot], LazyJSON.Document.FLAGS)
+              | LazyJSON.Document.OVERRIDDEN);
+        }
+        seen[slot] = entry;
+      }
+    }
+
+    /**
+     * helper method to hash the key and kind of value of an entry. The key is hashed as String.hashCode would hash it,
+     * straight from the text unless it has escapes or whitespace to drop
+     * @param entry int
+     * @return int
+     */
+    private int keyHash(int entry) {
+      int hash = 0;
+      if ((get(entry, LazyJSON.Document.FLAGS) & LazyJSON.Document.KEY_ENCODED) != 0) {
+        hash = key(entry).hashCode();
+      }
+      else {
+        for (int i = get(entry, LazyJSON.Document.KEY_START); i < get(entry, LazyJSON.Document.KEY_END); i++) {
+          hash = 31 * hash + text.charAt(i);
+        }
+      }
+      if ((get(entry, LazyJSON.Document.FLAGS) & LazyJSON.Document.OBJECT) != 0) {
+        hash = ~hash;
+      }
+
+      return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * helper method to see if two entries have the same key and the same kind of value
+     * @param a int
+     * @param b int
+     * @return boolean
+     */
+    private boolean sameKey(int a, int b) {
+      int flagsA = get(a, LazyJSON.Document.FLAGS);
+      int flagsB = get(b, LazyJSON.Document.FLAGS);
+      if ((flagsA & LazyJSON.Document.OBJECT) != (flagsB & LazyJSON.Document.OBJECT)) {
+        return false;
+      }
+      if (((flagsA | flagsB) & LazyJSON.Document.KEY_ENCODED) != 0) {
+        return key(a).equals(key(b));
+      }
+      int start = get(a, LazyJSON.Document.KEY_START);
+      int length = get(a, LazyJSON.Document.KEY_END) - start;
+      return length == get(b, LazyJSON.Document.KEY_END) - get(b, LazyJSON.Document.KEY_START)
+          && text.regionMatches(start, text, get(b, LazyJSON.Document.KEY_START), length);
+    }
+
+    /**
+     * helper method to create the key of an entry, only needed for keys with escapes or whitespace to drop
+     * @param entry int
+     * @return String
+     */
+    private String key(int entry) {
+      String key = text.substring(get(entry, LazyJSON.Document.KEY_START), get(entry, LazyJSON.Document.KEY_END));
+      return (get(entry, LazyJSON.Document.FLAGS) & LazyJSON.Document.KEY_ENCODED) != 0
+          ? JSONInput.unescape(key, stripWhitespace) : key;
+    }
+
+    /**
+     * helper method to add a new entry to the tape, growing it if it is full
+     * @return int the new entry
+     */
+    private int addEntry() {
+      if ((entries + 1) * LazyJSON.Document.ENTRY_SIZE > tape.length) {
+        tape = Arrays.copyOf(tape, tape.length * 2);
+      }
+      return entries++;
+    }
+
+    /**
+     * helper method to get one of the ints of an entry
+     * @param entry int
+     * @param field int
+     * @return int
+     */
+    private int get(int entry, int field) {
+      return tape[entry * LazyJSON.Document.ENTRY_SIZE + field];
+    }
+
+    /**
+     * helper method to set one of the ints of an entry
+     * @param entry int
+     * @param field int
+     * @param value int
+     */
+    private void set(int entry, int field, int value) {
+      tape[entry * LazyJSON.Document.ENTRY_SIZE + field] = value;
+    }
+  }
+}
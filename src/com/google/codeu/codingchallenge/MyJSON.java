@@ -94,4 +94,18 @@ final class MyJSON implements JSON {
       Map.Entry pair = (Map.Entry)it.next();
       names.add(pair.getKey().toString());
     }  }
+
+  /**
+   *
+   * @param visitor JSONVisitor
+   */
+  @Override
+  public void forEach(JSONVisitor visitor) {
+    for (Map.Entry<String, String> pair : strings.entrySet()) {
+      visitor.visitString(pair.getKey(), pair.getValue());
+    }
+    for (Map.Entry<String, JSON> pair : objects.entrySet()) {
+      visitor.visitObject(pair.getKey(), pair.getValue());
+    }
+  }
 }
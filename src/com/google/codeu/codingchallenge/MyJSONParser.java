@@ -14,31 +14,109 @@
 
 package com.google.codeu.codingchallenge;
 
-import com.sun.org.apache.bcel.internal.generic.NEW;
-
 import java.io.IOException;
-import java.security.Key;
-import java.util.HashMap;
-import java.util.SplittableRandom;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 
 /**
- * purpose of this class is to implement the JSONParser interface. Overrides the parse method
+ * purpose of this class is to implement the JSONParser interface. Overrides the parse method. The input is scanned
+ * once, left to right, through a JSONInput cursor. The grammar is checked in one place, scan, which reports what it
+ * finds to a JSONHandler: either the caller's own, or a TreeBuilder that builds the JSON objects as soon as each key
+ * value pair has been read. The only strings created are the final keys and values. Nesting is tracked with a depth
+ * counter and, when building, an explicit stack of open objects, so neither long nor deeply nested documents use
+ * more call stack than a flat one.
+ * A parser holds nothing but its settings; everything a parse needs is kept in a Context of the calling thread. One
+ * parser can therefore be shared by any number of threads, and each thread reuses its own buffers from call to call.
  * Created by Himani Vyas
  */
-final class MyJSONParser implements JSONParser {
-  //HashMap to keep track of opening and closing braces so we can make sure there are the same amount of opening braces
-  //as closing braces
-  private HashMap<Character, Integer> braces;
+final class MyJSONParser implements JSONParser, JSONInputParser, JSONEventParser {
+  public static final int DEFAULT_MAX_DEPTH = 1000;
+  private static final int INITIAL_FRAMES = 16;
+
+  static final String DEPTH_ERROR_MSG = "JSON-lite object is nested too deeply";
+
+  //Deepest nesting that will be accepted, the outer object is at depth 1
+  private final int maxDepth;
+
+  //Creates the objects the parsed key value pairs are stored in, or null to use MyJSON
+  private final JSONFactory factory;
+
+  //Shared instances of the keys, or null to create a new String for every key
+  private final KeyTable keyTable;
+
+  //Whether whitespace inside of keys and values is dropped, as it used to be, instead of kept as written
+  private final boolean stripWhitespace;
+
+  //Scratch state for each thread that uses this parser, kept between calls so buffers and frames are reused
+  private final ThreadLocal<Context> contexts = new ThreadLocal<Context>() {
+    @Override
+    protected Context initialValue() {
+      return new Context();
+    }
+  };
+
+  /**
+   * Creates a parser that accepts objects nested up to DEFAULT_MAX_DEPTH levels deep
+   */
+  public MyJSONParser() {
+    this(DEFAULT_MAX_DEPTH);
+  }
+
+  /**
+   * Creates a parser that accepts objects nested up to the given number of levels deep. The outer object counts as
+   * the first level. Anything nested deeper fails with an IOException as soon as the extra opening brace is read.
+   * @param maxDepth int
+   */
+  public MyJSONParser(int maxDepth) {
+    this(maxDepth, null);
+  }
 
-  //Key Group identifiers. For more info on Key Group look at KeyGroup class
-  private final String START_OBJ = "{\""; //Series of characters that represent a new object starting
-  private final String END_OBJ = "\"}"; //Series of characters that represent an object ending
-  private final String TRANSITION_TO_STRING = "\":\""; //Series of characters that represent a transition from a key to a string value
-  private final String TRANSITION_TO_OBJ = "\":{"; //Series of characters that represents a transition from a key to an object value
-  private final String NEW_KEY_VALUE_PAIR = "\",\""; //Series of characters that represents a new key value pair starting
-  private final String NEW_ITEM_AFTER_OBJ = "\"},\""; //Series of characters that represents a new item after an object
+  /**
+   * Creates a parser that accepts objects nested up to the given number of levels deep and stores what it parses in
+   * objects created by factory.object(), for example CompactJSON objects instead of MyJSON ones
+   * @param maxDepth int
+   * @param factory JSONFactory or null to use MyJSON
+   */
+  public MyJSONParser(int maxDepth, JSONFactory factory) {
+    this(maxDepth, factory, null);
+  }
+
+  /**
+   * Same as MyJSONParser(int, JSONFactory) but every key is looked up in the given table, which may be shared with
+   * other parsers and threads, so equal keys of all parsed objects are the same String instance
+   * @param maxDepth int
+   * @param factory JSONFactory or null to use MyJSON
+   * @param keyTable KeyTable or null to create a new String for every key
+   */
+  public MyJSONParser(int maxDepth, JSONFactory factory, KeyTable keyTable) {
+    this(maxDepth, factory, keyTable, false);
+  }
 
-  private final String GENERIC_ERROR_MSG = "Invalid JSON-lite object";
+  /**
+   * Same as MyJSONParser(int, JSONFactory, KeyTable) but, if stripWhitespace is set, all whitespace inside of keys and
+   * values is dropped the way earlier versions of this parser did, so "sam doe" is read as samdoe. Otherwise strings
+   * are kept exactly as written and only whitespace between tokens is skipped.
+   * @param maxDepth int
+   * @param factory JSONFactory or null to use MyJSON
+   * @param keyTable KeyTable or null to create a new String for every key
+   * @param stripWhitespace boolean
+   */
+  public MyJSONParser(int maxDepth, JSONFactory factory, KeyTable keyTable, boolean stripWhitespace) {
+    if (maxDepth < 1) {
+      throw new IllegalArgumentException("maxDepth must be at least 1");
+    }
+    this.maxDepth = maxDepth;
+    this.factory = factory;
+    this.keyTable = keyTable;
+    this.stripWhitespace = stripWhitespace;
+  }
 
   /**
    * Method overriden from interface. The purpose of this method is to parse the given string, see if it is a JSON-lite
@@ -49,351 +127,540 @@ final class MyJSONParser implements JSONParser {
    */
   @Override
   public JSON parse(String in) throws IOException {
-    in = formatString(in);
-    KeyGroup jsonKeyGroup = null;
-    if (in.equalsIgnoreCase("{}")) {
-      return new MyJSON();
+    Context context = acquire();
+    try {
+      return context.build(context.stringInput.reset(in));
+    } finally {
+      release(context);
     }
-    if (in.substring(0, 2).equalsIgnoreCase(START_OBJ) && checkForEscapedCharacters(in)) {
-      braces = new HashMap<>();
-      initBraces(in);
-      jsonKeyGroup = createLinkedList(in, new KeyGroup(START_OBJ, 2), 2);
-      MyJSON myJSON = new MyJSON();
-      if (checkLinkedList(jsonKeyGroup, in)) {
-        myJSON = createJSON(jsonKeyGroup, in, myJSON);
-      }
-      else {
-        throw new IOException(GENERIC_ERROR_MSG);
-      }
+  }
 
-      return myJSON;
-    }
-    else {
-      throw new IOException(GENERIC_ERROR_MSG);
+  /**
+   * Method overriden from interface. Same as parse(String) but the characters are read from the reader through a
+   * fixed size buffer instead of from one String holding the whole document.
+   * @param in Reader
+   * @return JSON
+   * @throws IOException if in is not valid JSON-lite object or cannot be read
+   */
+  @Override
+  public JSON parse(Reader in) throws IOException {
+    Context context = acquire();
+    try {
+      return context.build(context.readerInput.reset(in));
+    } finally {
+      release(context);
     }
   }
 
   /**
-   * Purpose of this method is to format the string so it doesn't include any spaces.
-   * TODO: This method makes the problem easier but potential bug when a key or value in the JSON-lite object has a
-   * TODO: space in it. Figure out a way to have code work while eliminating this work around
-   * @param unformattedString String to format
-   * @return String with no spaces or whitespace
+   * Method overriden from interface. Same as parse(Reader) for UTF-8 encoded bytes.
+   * @param in InputStream
+   * @return JSON
+   * @throws IOException if in is not valid JSON-lite object or cannot be read
    */
-  private String formatString(String unformattedString) {
-    unformattedString = unformattedString.trim();
-    unformattedString = unformattedString.replaceAll("\\s", "");
-    System.out.print(unformattedString);
-    return unformattedString;
+  @Override
+  public JSON parse(InputStream in) throws IOException {
+    return parse(new InputStreamReader(in, StandardCharsets.UTF_8));
   }
 
   /**
-   * purpse of this method is to check if there are any escaped characters in the string and if there are are they
-   * correctly formatted i.e  escapable characters are after a \
-   * @param in String that represents JSON-lite object
-   * @return boolean
+   * Method overriden from interface. Parses length UTF-8 encoded bytes of in starting at offset without decoding the
+   * whole document first; only keys and values are turned into Strings.
+   * @param in byte[]
+   * @param offset int
+   * @param length int
+   * @return JSON
+   * @throws IOException if the bytes are not a valid JSON-lite object
    */
-  private boolean checkForEscapedCharacters(String in) {
-    int i = 0;
-    while (i < in.length()) {
-      if (isKeyGrouping(in, i)) {
-        i = getKeyGrouping(in, i).getIndex();
-      }
-      else {
-        if (in.charAt(i) == '"') {
-          return false;
-        }
-        else if (in.charAt(i) == '\\') {
-          if (!validEscapedCharacter(in, i)) {
-            return false;
-          }
-        }
-        i = i + 1;
-      }
+  @Override
+  public JSON parse(byte[] in, int offset, int length) throws IOException {
+    Context context = acquire();
+    try {
+      return context.build(context.utf8Input.reset(in, offset, length));
+    } finally {
+      release(context);
     }
-
-    return true;
   }
 
   /**
-   * helper method for checkForEscapedCharacters. The purpose of this method is to see if each \ is followed by an
-   * escapable character
-   * @param in String that represents JSON-lite object
-   * @param index int
-   * @return boolean
+   * Method overriden from interface. Parses the UTF-8 encoded bytes between the position and the limit of in, which
+   * may be a heap or a direct buffer. The position of in is not changed.
+   * @param in ByteBuffer
+   * @return JSON
+   * @throws IOException if the bytes are not a valid JSON-lite object
    */
-  private boolean validEscapedCharacter(String in, int index) {
-    if (in.charAt(index) == '\\') {
-      if (in.charAt(index + 1) == '\\' || in.charAt(index + 1) == 'n' || in.charAt(index + 1) == 't' ||
-              in.charAt(index + 1) == '"') {
-        return true;
-      }
-      else {
-        return false;
-      }
+  @Override
+  public JSON parse(ByteBuffer in) throws IOException {
+    Context context = acquire();
+    try {
+      return context.build(context.utf8Input.reset(in));
+    } finally {
+      release(context);
     }
+  }
 
-    return false;
+  /**
+   * Method overriden from interface. Parses a UTF-8 encoded file by memory mapping it, so only the resulting objects
+   * take up heap.
+   * @param file Path
+   * @return JSON
+   * @throws IOException if the file cannot be read or is not a valid JSON-lite object
+   */
+  @Override
+  public JSON parseFile(Path file) throws IOException {
+    return parseFile(file, Utf8Input.DEFAULT_WINDOW_SIZE);
   }
 
   /**
-   * purpose of this method is to populate the braces hashmap with how many { and } there are
-   * @param in String
+   * Same as parseFile(Path) but maps at most windowSize bytes of the file at a time
+   * @param file Path
+   * @param windowSize int
+   * @return JSON
+   * @throws IOException if the file cannot be read or is not a valid JSON-lite object
    */
-  private void initBraces(String in) {
-    for (Character currChar : in.toCharArray()) {
-      if (currChar =='{' || currChar == '}') {
-        if (braces.size() == 0 || braces.get(currChar) == null) {
-          braces.put(currChar, 1);
-        }
-        else {
-          braces.put(currChar, braces.get(currChar) + 1);
-        }
-      }
+  JSON parseFile(Path file, int windowSize) throws IOException {
+    Context context = acquire();
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      return context.build(context.utf8Input.reset(channel, windowSize));
+    } finally {
+      release(context);
     }
   }
 
   /**
-   * the purpose of this method is recursively create a linked list of KeyGroup objects.
+   * Method overriden from interface. Checks the given string and reports its contents to the handler without building
+   * any objects.
    * @param in String
-   * @param current KeyGroup
-   * @param startIndex int
-   * @return KeyGroup
+   * @param handler JSONHandler
+   * @throws IOException if in is not valid JSON-lite object or the handler fails
    */
-  private KeyGroup createLinkedList(String in, KeyGroup current, int startIndex) {
-    //Base Case: if our index + 2 is greater than the length of our string. We add 2 because some of the helper methods
-    //get in.substring(index, index + 2) so index + 2 cannot be greater than in.length() otherwise an exception is thrown
-    if (startIndex + 2 > in.length()) {
-      return null;
+  @Override
+  public void parse(String in, JSONHandler handler) throws IOException {
+    Context context = acquire();
+    try {
+      context.scan(context.stringInput.reset(in), handler);
+    } finally {
+      release(context);
     }
+  }
 
-    //Recursive Case: If we have found a KeyGroup object then make our current's next equal to that object. Then
-    //recursively create current's next by passing in the right parameters to this method
-    if (isKeyGrouping(in, startIndex)) {
-      current.setNextKeyGroup(getKeyGrouping(in, startIndex));
-
-      //current.getNextKeygroup().getIndex() is the index of the character right after the keyGroup object ends
-      //For example: in = "{"name":"sam"}" current = "{"" current.next = " ":" " current.next.index = 9
-      createLinkedList(in, current.getNextKeyGroup(), current.getNextKeyGroup().getIndex());
-    }
-    //Other Recursive Case: We are at a character that does not have any value for us so just look at the next character
-    else {
-      createLinkedList(in, current, startIndex + 1);
+  /**
+   * Method overriden from interface. Same as parse(String, JSONHandler) for characters read from a reader.
+   * @param in Reader
+   * @param handler JSONHandler
+   * @throws IOException if in is not valid JSON-lite object, cannot be read or the handler fails
+   */
+  @Override
+  public void parse(Reader in, JSONHandler handler) throws IOException {
+    Context context = acquire();
+    try {
+      context.scan(context.readerInput.reset(in), handler);
+    } finally {
+      release(context);
     }
-
-    return current;
   }
 
   /**
-   * Helper method to see if the next series of characters form a KeyGroup
-   * @param in String
-   * @param i int
-   * @return boolean
+   * Method overriden from interface. Same as parse(String, JSONHandler) for UTF-8 encoded bytes.
+   * @param in byte[]
+   * @param offset int
+   * @param length int
+   * @param handler JSONHandler
+   * @throws IOException if the bytes are not a valid JSON-lite object or the handler fails
    */
-  private boolean isKeyGrouping(String in, int i) {
-    if (i + 4 <= in.length() && in.substring(i, i + 4).equalsIgnoreCase(NEW_ITEM_AFTER_OBJ) ||
-            i + 3 <= in.length() && in.substring(i, i + 3).equalsIgnoreCase(TRANSITION_TO_STRING) ||
-            i + 3 <= in.length() && in.substring(i, i + 3).equalsIgnoreCase(TRANSITION_TO_OBJ) ||
-            i + 3 <= in.length() && in.substring(i, i + 3).equalsIgnoreCase(NEW_KEY_VALUE_PAIR) ||
-            i + 2 <= in.length() && in.substring(i, i + 2).equalsIgnoreCase(START_OBJ) ||
-            i + 2 <= in.length() && in.substring(i, i + 2).equalsIgnoreCase(END_OBJ)) {
-      return true;
+  @Override
+  public void parse(byte[] in, int offset, int length, JSONHandler handler) throws IOException {
+    Context context = acquire();
+    try {
+      context.scan(context.utf8Input.reset(in, offset, length), handler);
+    } finally {
+      release(context);
     }
-
-    return false;
   }
 
   /**
-   * Helper method to retrieve a KeyGroup from the given string. One thing to note is if the KeyGroup is a
-   * TRANSITION_TO_OBJ then the index of the KeyGroup is purposely set to be off by one so the next KeyGroup can be a
-   * START_OBJ
+   * purpose of this method is to check that the given string is a valid JSON-lite object without building anything
+   * from it. Keys and values are only looked at, never copied, so a valid document is checked without creating any
+   * objects at all.
    * @param in String
-   * @param i int
-   * @return KeyGroup
+   * @return ValidationResult VALID, or where the first problem is, counted in characters
    */
-  private KeyGroup getKeyGrouping(String in, int i) {
-    if (i + 4 <= in.length() && in.substring(i, i + 4).equalsIgnoreCase(NEW_ITEM_AFTER_OBJ)) {
-      return new KeyGroup(NEW_ITEM_AFTER_OBJ, i + 4);
-    }
-    else if (i + 3 <= in.length() && in.substring(i, i + 3).equalsIgnoreCase(TRANSITION_TO_STRING)) {
-      return new KeyGroup(TRANSITION_TO_STRING, i + 3);
-    }
-    else if (i + 3 <= in.length() && in.substring(i, i + 3).equalsIgnoreCase(TRANSITION_TO_OBJ)) {
-      return new KeyGroup(TRANSITION_TO_OBJ, i + 2);
-    }
-    else if (i + 3 <= in.length() && in.substring(i, i + 3).equalsIgnoreCase(NEW_KEY_VALUE_PAIR)) {
-      return new KeyGroup(NEW_KEY_VALUE_PAIR, i + 3);
-    }
-    else if (i + 2 <= in.length() && in.substring(i, i + 2).equalsIgnoreCase(START_OBJ)) {
-      return new KeyGroup(START_OBJ, i + 2);
-    }
-    else if (i + 2 <= in.length() && in.substring(i, i + 2).equalsIgnoreCase(END_OBJ)) {
-      return new KeyGroup(END_OBJ, i + 2);
-    }
-    else {
-      return null;
+  public ValidationResult validate(String in) {
+    Context context = acquire();
+    try {
+      return context.validate(context.stringInput.reset(in));
+    } catch (IOException ex) {
+      //A String cannot fail to be read
+      throw new IllegalStateException(ex);
+    } finally {
+      release(context);
     }
   }
 
   /**
-   * purpose of this method is to check the linked list of Key Groups and see if the order is a valid order
-   * @param current KeyGroup
-   * @param in String
-   * @return boolean
+   * Same as validate(String) for UTF-8 encoded bytes
+   * @param in byte[]
+   * @return ValidationResult VALID, or where the first problem is, counted in bytes
    */
-  private boolean checkLinkedList(KeyGroup current, String in) {
-    while (current.getNextKeyGroup() != null) {
-      KeyGroup next = current.getNextKeyGroup();
-
-      //A START_OBJ and NEW_ITEM_AFTER_OBJ can only be followed by a TRANSITION_TO_OBJ or TRANSITION_TO_STRING
-      if (current.getKeyGroup().equalsIgnoreCase(START_OBJ) ||
-              current.getKeyGroup().equalsIgnoreCase(NEW_ITEM_AFTER_OBJ)) {
-        if ( !next.getKeyGroup().equalsIgnoreCase(TRANSITION_TO_OBJ) &&
-                !next.getKeyGroup().equalsIgnoreCase(TRANSITION_TO_STRING) ) {
-          return false;
-        }
-      }
-      //A TRANSITION_TO_STRING can only be followed an END_OBJ or NEW_KEY_VALUE_PAIR. Unless there are objects within
-      //the JSON-lite (This is indicated by there being more than 1 opening braces) In that case it can be followed by
-      //a NEW_ITEM_AFTER_OBJ
-      else if (current.getKeyGroup().equalsIgnoreCase(TRANSITION_TO_STRING)) {
-        if (braces.get('{') > 1) {
-          if ( !next.getKeyGroup().equalsIgnoreCase(END_OBJ) &&
-                  !next.getKeyGroup().equalsIgnoreCase(NEW_ITEM_AFTER_OBJ) &&
-                  !next.getKeyGroup().equalsIgnoreCase(NEW_KEY_VALUE_PAIR)) {
-            return false;
-          }
-        }
-        else if ( !next.getKeyGroup().equalsIgnoreCase(END_OBJ) &&
-                !next.getKeyGroup().equalsIgnoreCase(NEW_KEY_VALUE_PAIR) ) {
-          return false;
-        }
-      }
-      //A TRANSITION_TO_OBJ can only be followed by a START_OBJ
-      else if (current.getKeyGroup().equalsIgnoreCase(TRANSITION_TO_OBJ)) {
-        if (!next.getKeyGroup().equalsIgnoreCase(START_OBJ)) {
-          return false;
-        }
-      }
-      //A NEW_KEY_VALUE_PAIR can only be followed by a TRANSITION_TO_STRING obj
-      else if (current.getKeyGroup().equalsIgnoreCase(NEW_KEY_VALUE_PAIR)) {
-        if (!next.getKeyGroup().equalsIgnoreCase(TRANSITION_TO_STRING)) {
-          return false;
-        }
-      }
-      //A END_OBJ is either the last thing in the JSON-lite object or it is only followed by closing braces
-      else if (current.getKeyGroup().equalsIgnoreCase(END_OBJ)) {
-        if (current.getIndex() != in.length() || in.charAt(current.getIndex() + 1) != '}') {
-          return false;
-        }
-      }
-      else {
-        return false;
-      }
-
-      current = next;
-    }
+  public ValidationResult validate(byte[] in) {
+    return validate(in, 0, in.length);
+  }
 
-    //Check to see the last elements are only closing braces
-    if (current.getKeyGroup().equalsIgnoreCase(END_OBJ) &&
-            checkBraces() &&
-            checkRestAreBraces(in, current.getIndex() + 1)) {
-      return true;
-    }
-    else {
-      return false;
+  /**
+   * Same as validate(String) for length UTF-8 encoded bytes of in starting at offset
+   * @param in byte[]
+   * @param offset int
+   * @param length int
+   * @return ValidationResult VALID, or where the first problem is, counted in bytes from offset
+   */
+  public ValidationResult validate(byte[] in, int offset, int length) {
+    Context context = acquire();
+    try {
+      return context.validate(context.utf8Input.reset(in, offset, length));
+    } catch (IOException ex) {
+      //Bytes in memory cannot fail to be read
+      throw new IllegalStateException(ex);
+    } finally {
+      release(context);
     }
+  }
 
+  /**
+   * purpose of this method is to create a cursor that reads the given string one token at a time with the depth limit
+   * and key table of this parser. The cursor has its own input, so it can be kept and used after this call.
+   * @param in String
+   * @return JSONCursor
+   */
+  public JSONCursor cursor(String in) {
+    return cursor(new StringInput().reset(in));
   }
 
   /**
-   * helper method to see if there are same number of opening braces as there are closing braces
-   * @return boolean
+   * Same as cursor(String) for characters read from a reader
+   * @param in Reader
+   * @return JSONCursor
    */
-  private boolean checkBraces() {
-    return braces.get('{') == braces.get('}');
+  public JSONCursor cursor(Reader in) {
+    return cursor(new ReaderInput().reset(in));
   }
 
   /**
-   * helper method to see if characters after index are all closing braces
-   * @param in String
-   * @param index int
-   * @return boolean
+   * Same as cursor(String) for length UTF-8 encoded bytes of in starting at offset
+   * @param in byte[]
+   * @param offset int
+   * @param length int
+   * @return JSONCursor
    */
-  private boolean checkRestAreBraces(String in, int index) {
-    for (int i = index; i < in.length(); i++) {
-      if (in.charAt(i) != '{' || in.charAt(i) != '}') {
-        return false;
-      }
-    }
+  public JSONCursor cursor(byte[] in, int offset, int length) {
+    return cursor(new Utf8Input().reset(in, offset, length));
+  }
 
-    return true;
+  /**
+   * helper method to create a cursor over the given input with the settings of this parser
+   * @param input JSONInput
+   * @return JSONCursor
+   */
+  private JSONCursor cursor(JSONInput input) {
+    input.setDropWhitespace(stripWhitespace);
+    return new JSONCursor(input, maxDepth, keyTable);
   }
 
   /**
-   * the purpose of this method is to recurse through the validated linked list of KeyGroup objects and make a JSON
-   * object coresponding to the data
-   * @param current KeyGroup
-   * @param in String
-   * @param myJSON MyJSON
-   * @return MyJSON
+   * helper method to get the context of the calling thread. If that context is already in use, because parsing
+   * called back into this parser on the same thread, a fresh one is used instead.
+   * @return Context
    */
-  private MyJSON createJSON(KeyGroup current, String in, MyJSON myJSON) {
-    //Base Case: We are are an END_OBJ
-    if (current.getKeyGroup().equalsIgnoreCase(END_OBJ)) {
-      return myJSON;
-    }
-    //Recursive Case: Input a key value pair into a MyJSON object depending on if its a string key Value pair or
-    // an object key Value pair
-    if (current.getKeyGroup().equalsIgnoreCase(START_OBJ) || current.getKeyGroup().equalsIgnoreCase(NEW_KEY_VALUE_PAIR) ||
-            current.getKeyGroup().equalsIgnoreCase(NEW_ITEM_AFTER_OBJ)) {
-      int keyStart = current.getIndex();
-      int keyEnd = getEndingIndex(current);
-      if (current.getNextKeyGroup().getKeyGroup().equalsIgnoreCase(TRANSITION_TO_STRING)) {
-        int valStart = current.getNextKeyGroup().getIndex();
-        int valEnd = getEndingIndex(current.getNextKeyGroup());
-        myJSON.setString(in.substring(keyStart, keyEnd), in.substring(valStart, valEnd));
-
-        return createJSON(current.getNextKeyGroup(), in, myJSON);
-      }
-      //if key value pair is an object key value pair then create another MyJSON object and call createJSON using that
-      //MyJSON object. Then after the new MyJSON object is created, insert it into the original MyJSON object
-      else if (current.getNextKeyGroup().getKeyGroup().equalsIgnoreCase(TRANSITION_TO_OBJ)) {
-        MyJSON newJson = new MyJSON();
-        newJson = createJSON(current.getNextKeyGroup(), in, newJson);
-        myJSON.setObject(in.substring(keyStart, keyEnd), newJson);
-
-        return createJSON(current.getNextKeyGroup(), in, myJSON);
-      }
+  private Context acquire() {
+    Context context = contexts.get();
+    if (context.busy) {
+      return new Context();
     }
+    context.busy = true;
+    return context;
+  }
 
-    return createJSON(current.getNextKeyGroup(), in, myJSON);
+  /**
+   * helper method to hand a context back once a parse is done with it, letting go of the input it read
+   * @param context Context
+   */
+  private void release(Context context) {
+    context.stringInput.reset(null);
+    context.readerInput.reset(null);
+    context.utf8Input.clear();
+    context.builder.clear();
+    context.busy = false;
   }
 
   /**
-   * helper method to get the ending indices for the names of the keys and values. There is an off by one error for
-   * TRANSITION_TO_OBJ KeyGroup objects so just add one for them
-   * @param current KeyGroup
-   * @return int
+   * purpose of this class is to hold everything a single parse needs apart from the parser's settings. Each thread has
+   * its own, so nothing in it is shared between threads.
    */
-  private int getEndingIndex(KeyGroup current) {
-    if (current.getNextKeyGroup().getKeyGroup().equalsIgnoreCase(TRANSITION_TO_OBJ)) {
-      return current.getNextKeyGroup().getIndex() - current.getNextKeyGroup().getKeyGroup().length() + 1;
+  private final class Context {
+    //Reusable inputs for each kind of document
+    private final StringInput stringInput = new StringInput();
+    private final ReaderInput readerInput = new ReaderInput();
+    private final Utf8Input utf8Input = new Utf8Input();
+
+    //Reusable handler that builds JSON objects
+    private final TreeBuilder builder = new TreeBuilder();
+
+    //True while a parse is using this context
+    private boolean busy;
+
+    Context() {
+      stringInput.setDropWhitespace(stripWhitespace);
+      readerInput.setDropWhitespace(stripWhitespace);
+      utf8Input.setDropWhitespace(stripWhitespace);
     }
 
-    return current.getNextKeyGroup().getIndex() - current.getNextKeyGroup().getKeyGroup().length();
-  }
+    /**
+     * purpose of this method is to parse a whole document from the given input into JSON objects
+     * @param input JSONInput
+     * @return JSON
+     * @throws IOException if the input is not a valid JSON-lite object
+     */
+    JSON build(JSONInput input) throws IOException {
+      scan(input, builder);
+      return builder.result;
+    }
 
+    /**
+     * purpose of this method is to check a whole document from the given input and report its contents to the
+     * handler. The document has to be one object with nothing but whitespace after it. Nested objects are tracked with
+     * a depth counter instead of recursion so only the nesting depth, never the length of the input, decides how much
+     * is kept.
+     * @param input JSONInput
+     * @param handler JSONHandler
+     * @throws IOException if the input is not a valid JSON-lite object or the handler fails
+     */
+    void scan(JSONInput input, JSONHandler handler) throws IOException {
+      if (input.nextToken() != '{') {
+        throw input.error(JSONInput.EXPECTED_OBJECT);
+      }
+      handler.startObject(null);
+      int depth = 1;
+      boolean justOpened = true;
+      while (depth > 0) {
+        int c = input.nextToken();
+
+        //Right after an opening brace the object may be empty, otherwise a key value pair has to follow
+        if (c != '}' || !justOpened) {
+          if (c != '"') {
+            throw input.error(justOpened ? JSONInput.EXPECTED_KEY_OR_END : JSONInput.EXPECTED_KEY);
+          }
+          String key = keyTable == null ? input.readString() : input.readKey(keyTable);
+          if (input.nextToken() != ':') {
+            throw input.error(JSONInput.EXPECTED_COLON);
+          }
+
+          c = input.nextToken();
+          if (c == '{') {
+            if (depth == maxDepth) {
+              throw input.error(DEPTH_ERROR_MSG, null);
+            }
+            depth = depth + 1;
+            handler.startObject(key);
+            justOpened = true;
+            continue;
+          }
+          if (c != '"') {
+            throw input.error(JSONInput.EXPECTED_VALUE);
+          }
+          handler.stringValue(key, input.readText());
+          c = input.nextToken();
+        }
+
+        //Every closing brace finishes the innermost open object
+        while (c == '}') {
+          depth = depth - 1;
+          handler.endObject();
+          if (depth == 0) {
+            break;
+          }
+          c = input.nextToken();
+        }
+
+        if (depth > 0 && c != ',') {
+          throw input.error(JSONInput.EXPECTED_SEPARATOR);
+        }
+        justOpened = false;
+      }
 
+      //Only whitespace is allowed after the closing brace of the outer object
+      if (input.nextToken() != -1) {
+        throw input.error(JSONInput.EXPECTED_END);
+      }
+    }
 
+    /**
+     * purpose of this method is to check a whole document from the given input against the same grammar as scan, but
+     * only skipping over strings instead of reading them, and to say where the first problem is instead of throwing
+     * @param input JSONInput
+     * @return ValidationResult
+     * @throws IOException if the input cannot be read
+     */
+    ValidationResult validate(JSONInput input) throws IOException {
+      if (input.nextToken() != '{') {
+        return invalid(input, JSONInput.EXPECTED_OBJECT);
+      }
+      int depth = 1;
+      boolean justOpened = true;
+      while (depth > 0) {
+        int c = input.nextToken();
+
+        if (c != '}' || !justOpened) {
+          if (c != '"') {
+            return invalid(input, justOpened ? JSONInput.EXPECTED_KEY_OR_END : JSONInput.EXPECTED_KEY);
+          }
+          if (!skipString(input)) {
+            return invalid(input, JSONInput.EXPECTED_STRING);
+          }
+          if (input.nextToken() != ':') {
+            return invalid(input, JSONInput.EXPECTED_COLON);
+          }
 
+          c = input.nextToken();
+          if (c == '{') {
+            if (depth == maxDepth) {
+              return ValidationResult.failure(input.tokenOffset(), DEPTH_ERROR_MSG);
+            }
+            depth = depth + 1;
+            justOpened = true;
+            continue;
+          }
+          if (c != '"') {
+            return invalid(input, JSONInput.EXPECTED_VALUE);
+          }
+          if (!skipString(input)) {
+            return invalid(input, JSONInput.EXPECTED_STRING);
+          }
+          c = input.nextToken();
+        }
 
+        while (c == '}') {
+          depth = depth - 1;
+          if (depth == 0) {
+            break;
+          }
+          c = input.nextToken();
+        }
 
+        if (depth > 0 && c != ',') {
+          return invalid(input, JSONInput.EXPECTED_SEPARATOR);
+        }
+        justOpened = false;
+      }
 
+      if (input.nextToken() != -1) {
+        return invalid(input, JSONInput.EXPECTED_END);
+      }
+      return ValidationResult.VALID;
+    }
 
+    /**
+     * helper method for validate to skip a string whose opening quote has just been read. The offset of the input is
+     * left at the opening quote, so a bad string is reported where it starts.
+     * @param input JSONInput
+     * @return boolean false if the string is not terminated or contains an invalid escape
+     */
+    private boolean skipString(JSONInput input) {
+      try {
+        input.skipString();
+        return true;
+      } catch (IOException ex) {
+        //validate only reads from memory, so the string itself is the only thing that can fail
+        return false;
+      }
+    }
+  }
 
+  /**
+   * helper method for validate to describe a problem at the last token read from input
+   * @param input JSONInput
+   * @param expected String one of the JSONInput.EXPECTED_ token classes
+   * @return ValidationResult
+   */
+  private static ValidationResult invalid(JSONInput input, String expected) {
+    return ValidationResult.failure(input.tokenOffset(), "expected " + expected);
+  }
 
+  /**
+   * purpose of this class is to build JSON objects from what scan reports. Open objects and the keys they will be
+   * stored under in their parents are kept on a stack that is reused by every parse, so it only grows to the deepest
+   * nesting seen. A nested object is added to its parent once it has ended.
+   */
+  private final class TreeBuilder implements JSONHandler {
+    private JSON[] objects = new JSON[Math.min(INITIAL_FRAMES, maxDepth)];
+    private String[] keys = new String[objects.length];
+    //For objects the factory makes as PersistentJSON, the builder collecting their values; null for the others
+    private PersistentJSON.Builder[] builders = new PersistentJSON.Builder[objects.length];
+    private int depth;
+
+    //The outer object once it has ended
+    private JSON result;
+
+    @Override
+    public void startObject(String key) {
+      if (depth == objects.length) {
+        int size = (int) Math.min((long) objects.length * 2, maxDepth);
+        objects = Arrays.copyOf(objects, size);
+        keys = Arrays.copyOf(keys, size);
+        builders = Arrays.copyOf(builders, size);
+      }
+      JSON json = factory == null ? new MyJSON() : factory.object();
+      //Setting values one at a time on a PersistentJSON copies its arrays every time, so they are collected and
+      //sorted once when the object ends
+      if (json instanceof PersistentJSON) {
+        builders[depth] = ((PersistentJSON) json).toBuilder();
+      }
+      else {
+        objects[depth] = json;
+      }
+      keys[depth] = key;
+      depth = depth + 1;
+    }
 
+    @Override
+    public void endObject() {
+      depth = depth - 1;
+      JSON json = builders[depth] == null ? objects[depth] : builders[depth].build();
+      String key = keys[depth];
+      objects[depth] = null;
+      keys[depth] = null;
+      builders[depth] = null;
+      if (depth == 0) {
+        result = json;
+      }
+      else if (builders[depth - 1] != null) {
+        builders[depth - 1].setObject(key, json);
+      }
+      else {
+        //Immutable objects return a new version instead of changing themselves
+        objects[depth - 1] = objects[depth - 1].setObject(key, json);
+      }
+    }
 
+    @Override
+    public void stringValue(String key, CharSequence value) {
+      if (builders[depth - 1] != null) {
+        builders[depth - 1].setString(key, value.toString());
+      }
+      else {
+        objects[depth - 1] = objects[depth - 1].setString(key, value.toString());
+      }
+    }
 
+    /**
+     * purpose of this method is to let go of the result and of any half built tree left by a failed parse
+     */
+    void clear() {
+      while (depth > 0) {
+        depth = depth - 1;
+        objects[depth] = null;
+        keys[depth] = null;
+        builders[depth] = null;
+      }
+      result = null;
+    }
+  }
 }
@@ -0,0 +1,395 @@
+// Copyright 2017 Google Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//    http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.codeu.codingchallenge;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+/**
+ * purpose of this class is to read newline delimited JSON-lite: one object per line, as written by our log pipeline.
+ * The input is read once through a single reusable buffer. Blank lines are skipped.
+ * next() parses each line straight out of that buffer: the parser reads the line through a Reader that ends at the
+ * newline, so no String is created for the line and the parser's own buffers are reused too.
+ * readAll(Callback, Executor, int) instead splits lines on the calling thread and parses them on the executor, with at
+ * most a given number of lines in flight so memory stays bounded however fast the input arrives. Each line in flight is
+ * copied into one of a fixed set of char buffers, which is reused once its record has been handed over. Results are
+ * still handed to the callback on the calling thread, in input order.
+ */
+final class NDJSONReader implements Closeable {
+  static final int DEFAULT_BUFFER_SIZE = 8192;
+
+  /**
+   * purpose of this interface is to receive the records read by readAll, one at a time and in input order
+   */
+  interface Callback {
+    void record(long line, ParseResult result) throws IOException;
+  }
+
+  private final Reader reader;
+  private final JSONInputParser parser;
+
+  //Characters read but not used yet are buffer[pos] up to buffer[limit]
+  private final char[] buffer;
+  private int pos;
+  private int limit;
+
+  //Line number of the next character and of the first line of the last record read
+  private long line = 1;
+  private long recordLine;
+
+  //The failure of the reader itself, kept apart from records that are not valid
+  private IOException readFailure;
+
+  private final Line lineReader = new Line();
+
+  /**
+   * Creates a reader that parses the lines of the given reader with a new MyJSONParser
+   * @param reader Reader
+   */
+  NDJSONReader(Reader reader) {
+    this(reader, new MyJSONParser(), DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * Creates a reader that parses the lines of UTF-8 encoded input with a new MyJSONParser
+   * @param in InputStream
+   */
+  NDJSONReader(InputStream in) {
+    this(new InputStreamReader(in, StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Creates a reader that parses the lines of the given reader with the given parser
+   * @param reader Reader
+   * @param parser JSONInputParser, which has to be safe to share between threads for readAll(Callback, Executor, int)
+   * @param bufferSize int
+   */
+  NDJSONReader(Reader reader, JSONInputParser parser, int bufferSize) {
+    this.reader = reader;
+    this.parser = parser;
+    buffer = new char[bufferSize];
+  }
+
+  /**
+   * purpose of this method is to open a UTF-8 encoded file for reading. The reader has to be closed when done.
+   * @param file Path
+   * @return NDJSONReader
+   * @throws IOException if the file cannot be opened
+   */
+  static NDJSONReader open(Path file) throws IOException {
+    return new NDJSONReader(Files.newInputStream(file));
+  }
+
+  /**
+   * purpose of this method is to parse the next record. If the record is not valid the IOException is thrown, but the
+   * rest of its line is skipped so reading can go on with the next record.
+   * @return JSON the next record or null if there are no more
+   * @throws IOException if the record is not valid or the input cannot be read
+   */
+  JSON next() throws IOException {
+    if (!skipBlank()) {
+      return null;
+    }
+    recordLine = line;
+    lineReader.start();
+    try {
+      return parser.parse(lineReader);
+    } finally {
+      lineReader.skipRest();
+    }
+  }
+
+  /**
+   * @return long the line number of the record last returned by next, counting from 1
+   */
+  long getLine() {
+    return recordLine;
+  }
+
+  /**
+   * purpose of this method is to parse every remaining record and hand each one to the callback. Records that are not
+   * valid are handed over as failures; only a failure to read the input stops reading.
+   * @param callback Callback
+   * @throws IOException if the input cannot be read or the callback fails
+   */
+  void readAll(Callback callback) throws IOException {
+    while (true) {
+      ParseResult result;
+      try {
+        JSON json = next();
+        if (json == null) {
+          return;
+        }
+        result = ParseResult.success(json);
+      } catch (IOException ex) {
+        if (readFailure != null) {
+          throw readFailure;
+        }
+        result = ParseResult.failure(ex);
+      }
+      callback.record(recordLine, result);
+    }
+  }
+
+  /**
+   * purpose of this method is to parse every remaining record on the given executor while this thread keeps reading
+   * lines. At most window records are read but not yet handed to the callback at any time.
+   * @param callback Callback, always called on this thread
+   * @param executor Executor
+   * @param window int
+   * @throws IOException if the input cannot be read or the callback fails
+   * @throws InterruptedException if this thread is interrupted while waiting for a record
+   */
+  void readAll(Callback callback, Executor executor, int window) throws IOException, InterruptedException {
+    if (window < 1) {
+      throw new IllegalArgumentException("window must be at least 1");
+    }
+    ArrayDeque<Record> inFlight = new ArrayDeque<>(window);
+    ArrayDeque<Record> free = new ArrayDeque<>(window);
+
+    while (skipBlank()) {
+      //Hand over the oldest record first, so no more than window lines are ever read ahead
+      if (inFlight.size() == window) {
+        free.add(deliver(callback, inFlight.remove()));
+      }
+      Record record = free.isEmpty() ? new Record() : free.remove();
+      record.line = line;
+      readLine(record);
+      record.task = new FutureTask<>(record);
+      executor.execute(record.task);
+      inFlight.add(record);
+    }
+
+    while (!inFlight.isEmpty()) {
+      deliver(callback, inFlight.remove());
+    }
+  }
+
+  /**
+   * purpose of this method is to close the underlying reader
+   * @throws IOException if closing fails
+   */
+  @Override
+  public void close() throws IOException {
+    reader.close();
+  }
+
+  /**
+   * helper method to wait for a record parsed on the executor and hand it to the callback. A RuntimeException or Error
+   * thrown by the parser is rethrown as it is.
+   * @param callback Callback
+   * @param record Record
+   * @return Record the record, free to be reused
+   * @throws IOException if the callback fails
+   * @throws InterruptedException if this thread is interrupted while waiting
+   */
+  private Record deliver(Callback callback, Record record) throws IOException, InterruptedException {
+    ParseResult result;
+    try {
+      result = record.task.get();
+    } catch (ExecutionException ex) {
+      Throwable cause = ex.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException("parsing a record failed", cause);
+    }
+    record.task = null;
+    callback.record(record.line, result);
+    return record;
+  }
+
+  /**
+   * helper method to skip whitespace and blank lines up to the start of the next record
+   * @return boolean false if the input has ended
+   * @throws IOException if the input cannot be read
+   */
+  private boolean skipBlank() throws IOException {
+    while (pos < limit || fill()) {
+      char c = buffer[pos];
+      if (c == '\n') {
+        line = line + 1;
+      }
+      else if (!JSONInput.isWhitespace(c)) {
+        return true;
+      }
+      pos = pos + 1;
+    }
+
+    return false;
+  }
+
+  /**
+   * helper method to copy the rest of the current line, without its newline, into the buffer of a record
+   * @param record Record
+   * @throws IOException if the input cannot be read
+   */
+  private void readLine(Record record) throws IOException {
+    record.length = 0;
+    while (pos < limit || fill()) {
+      int start = pos;
+      while (pos < limit && buffer[pos] != '\n') {
+        pos = pos + 1;
+      }
+      record.append(buffer, start, pos - start);
+      if (pos < limit) {
+        pos = pos + 1;
+        line = line + 1;
+        break;
+      }
+    }
+  }
+
+  /**
+   * helper method to refill the buffer from the reader once every character in it has been used
+   * @return boolean false if the reader has no more characters
+   * @throws IOException if the reader fails
+   */
+  private boolean fill() throws IOException {
+    try {
+      int read = reader.read(buffer, 0, buffer.length);
+      while (read == 0) {
+        read = reader.read(buffer, 0, buffer.length);
+      }
+      pos = 0;
+      limit = Math.max(read, 0);
+      return read > 0;
+    } catch (IOException ex) {
+      readFailure = ex;
+      throw ex;
+    }
+  }
+
+  /**
+   * purpose of this class is to let the parser read a single line out of the buffer. It ends at the newline, which it
+   * consumes, or at the end of the input.
+   */
+  private final class Line extends Reader {
+    private boolean ended;
+
+    /**
+     * purpose of this method is to start reading a new line from the current position
+     */
+    void start() {
+      ended = false;
+    }
+
+    /**
+     * purpose of this method is to move past whatever the parser did not read of the line
+     * @throws IOException if the input cannot be read
+     */
+    void skipRest() throws IOException {
+      while (!ended && (pos < limit || fill())) {
+        if (buffer[pos++] == '\n') {
+          line = line + 1;
+          ended = true;
+        }
+      }
+      ended = true;
+    }
+
+    @Override
+    public int read(char[] chars, int offset, int length) throws IOException {
+      if (ended || (pos == limit && !fill())) {
+        ended = true;
+        return -1;
+      }
+      int count = 0;
+      while (count < length && pos < limit) {
+        char c = buffer[pos++];
+        if (c == '\n') {
+          line = line + 1;
+          ended = true;
+          break;
+        }
+        chars[offset + count] = c;
+        count = count + 1;
+      }
+
+      return count == 0 && ended ? -1 : count;
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+
+  /**
+   * purpose of this class is to hold one line that is parsed on the executor. The line is read back to the parser
+   * straight out of the record's char buffer, which grows to the longest line seen and is kept for the next line.
+   */
+  private final class Record extends Reader implements Callable<ParseResult> {
+    private char[] chars = new char[256];
+    private int length;
+    private int read;
+    private long line;
+    private FutureTask<ParseResult> task;
+
+    /**
+     * purpose of this method is to add characters to the end of the line
+     * @param source char[]
+     * @param offset int
+     * @param count int
+     */
+    void append(char[] source, int offset, int count) {
+      if (length + count > chars.length) {
+        chars = Arrays.copyOf(chars, Math.max(chars.length * 2, length + count));
+      }
+      System.arraycopy(source, offset, chars, length, count);
+      length = length + count;
+    }
+
+    @Override
+    public ParseResult call() {
+      read = 0;
+      try {
+        return ParseResult.success(parser.parse(this));
+      } catch (IOException ex) {
+        return ParseResult.failure(ex);
+      }
+    }
+
+    @Override
+    public int read(char[] target, int offset, int count) {
+      if (read == length) {
+        return -1;
+      }
+      int copied = Math.min(count, length - read);
+      System.arraycopy(chars, read, target, offset, copied);
+      read = read + copied;
+      return copied;
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+}
@@ -0,0 +1,69 @@
+// Copyright 2017 Google Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//    http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.codeu.codingchallenge;
+
+import java.io.IOException;
+
+/**
+ * purpose of this class is to hold the outcome of parsing one document of a batch: either the parsed object or the
+ * reason the document could not be parsed
+ */
+final class ParseResult {
+  private final JSON json;
+  private final IOException error;
+
+  private ParseResult(JSON json, IOException error) {
+    this.json = json;
+    this.error = error;
+  }
+
+  /**
+   * @param json JSON
+   * @return ParseResult for a document that was parsed
+   */
+  static ParseResult success(JSON json) {
+    return new ParseResult(json, null);
+  }
+
+  /**
+   * @param error IOException
+   * @return ParseResult for a document that could not be parsed
+   */
+  static ParseResult failure(IOException error) {
+    return new ParseResult(null, error);
+  }
+
+  /**
+   * @return boolean true if the document was parsed
+   */
+  public boolean isValid() {
+    return error == null;
+  }
+
+  /**
+   * @return JSON the parsed object, or null if the document could not be parsed
+   */
+  public JSON getJSON() {
+    return json;
+  }
+
+  /**
+   * @return IOException why the document could not be parsed, or null if it was parsed
+   */
+  public IOException getError() {
+    return error;
+  }
+}
@@ -0,0 +1,385 @@
+// Copyright 2017 Google Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//    http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.codeu.codingchallenge;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * purpose of this class is to implement the JSON interface with objects that never change, so one tree can be read
+ * by any number of threads without locks or defensive copies. Setting a value does not change the object: it
+ * returns a new version that holds the new value and shares everything else with the old one, nested objects
+ * included, so an update costs one copy of the arrays of the object that changed.
+ * Unlike the other implementations, setString and setObject therefore return a different object than "this" whenever
+ * the value changes, and callers must use what they return.
+ * Values are kept in parallel arrays sorted by the hash of their key and type, so lookups are a binary search.
+ * The arrays are never written once an object is created, which is what lets versions share them. Building a large
+ * object one value at a time copies its arrays once per value; Builder collects the values first and sorts them once,
+ * which is also what MyJSONParser and BinaryCodec do when their factory makes PersistentJSON objects.
+ */
+final class PersistentJSON implements JSON {
+  private static final byte STRING = 0;
+  private static final byte OBJECT = 1;
+
+  static final PersistentJSON EMPTY = new PersistentJSON(new int[0], new String[0], new Object[0], new byte[0]);
+
+  private final int[] hashes;
+  private final String[] keys;
+  private final Object[] values;
+  private final byte[] types;
+
+  private PersistentJSON(int[] hashes, String[] keys, Object[] values, byte[] types) {
+    this.hashes = hashes;
+    this.keys = keys;
+    this.values = values;
+    this.types = types;
+  }
+
+  /**
+   * purpose of this method is to get an immutable copy of a tree of any JSON implementation. Objects that already
+   * are PersistentJSON are shared, not copied
+   * @param json JSON
+   * @return PersistentJSON
+   */
+  static PersistentJSON copyOf(JSON json) {
+    if (json instanceof PersistentJSON) {
+      return (PersistentJSON) json;
+    }
+    Builder builder = new Builder();
+    List<String> names = new ArrayList<>();
+    json.getStrings(names);
+    for (String name : names) {
+      builder.setString(name, json.getString(name));
+    }
+    names.clear();
+    json.getObjects(names);
+    for (String name : names) {
+      builder.setObject(name, json.getObject(name));
+    }
+    return builder.build();
+  }
+
+  /**
+   * purpose of this method is to start a builder that holds all the values of this object
+   * @return Builder
+   */
+  Builder toBuilder() {
+    Builder builder = new Builder();
+    for (int i = 0; i < keys.length; i++) {
+      builder.add(keys[i], values[i], types[i]);
+    }
+    return builder;
+  }
+
+  /**
+   *
+   * @param name String
+   * @return JSON
+   */
+  @Override
+  public JSON getObject(String name) {
+    int slot = find(name, OBJECT);
+    return slot < 0 ? null : (JSON) values[slot];
+  }
+
+  /**
+   *
+   * @param name String
+   * @param value JSON copied with copyOf unless it is a PersistentJSON already
+   * @return JSON the new version
+   */
+  @Override
+  public JSON setObject(String name, JSON value) {
+    return with(name, value == null ? null : copyOf(value), OBJECT);
+  }
+
+  /**
+   *
+   * @param name String
+   * @return String
+   */
+  @Override
+  public String getString(String name) {
+    int slot = find(name, STRING);
+    return slot < 0 ? null : (String) values[slot];
+  }
+
+  /**
+   *
+   * @param name String
+   * @param value String
+   * @return JSON the new version
+   */
+  @Override
+  public JSON setString(String name, String value) {
+    return with(name, value, STRING);
+  }
+
+  /**
+   *
+   * @param names Collection<String>
+   */
+  @Override
+  public void getObjects(Collection<String> names) {
+    addKeys(names, OBJECT);
+  }
+
+  /**
+   *
+   * @param names Collection<String>
+   */
+  @Override
+  public void getStrings(Collection<String> names) {
+    addKeys(names, STRING);
+  }
+
+  /**
+   *
+   * @param visitor JSONVisitor
+   */
+  @Override
+  public void forEach(JSONVisitor visitor) {
+    for (int i = 0; i < keys.length; i++) {
+      if (types[i] == STRING) {
+        visitor.visitString(keys[i], (String) values[i]);
+      }
+    }
+    for (int i = 0; i < keys.length; i++) {
+      if (types[i] == OBJECT) {
+        visitor.visitObject(keys[i], (JSON) values[i]);
+      }
+    }
+  }
+
+  /**
+   * helper method to copy the keys of every value of one type to the given collection
+   * @param names Collection<String>
+   * @param type byte
+   */
+  private void addKeys(Collection<String> names, byte type) {
+    for (int i = 0; i < keys.length; i++) {
+      if (types[i] == type) {
+        names.add(keys[i]);
+      }
+    }
+  }
+
+  /**
+   * helper method to find the slot of the value with the given key and type
+   * @param name String
+   * @param type byte
+   * @return int the slot, or minus one minus the slot a new value would go in if there is none
+   */
+  private int find(String name, byte type) {
+    int hash = hash(name, type);
+    int low = 0;
+    int high = hashes.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (hashes[middle] < hash) {
+        low = middle + 1;
+      }
+      else {
+        high = middle;
+      }
+    }
+
+    //low is the first slot with this hash; keys whose hashes collide sit next to each other
+    while (low < hashes.length && hashes[low] == hash) {
+      if (types[low] == type && keys[low].equals(name)) {
+        return low;
+      }
+      low = low + 1;
+    }
+    return -1 - low;
+  }
+
+  /**
+   * helper method to get the version of this object where the given key and type hold the given value
+   * @param name String
+   * @param value Object
+   * @param type byte
+   * @return PersistentJSON this if the value is already there
+   */
+  private PersistentJSON with(String name, Object value, byte type) {
+    if (name == null) {
+      throw new NullPointerException("name");
+    }
+    int slot = find(name, type);
+    if (slot >= 0) {
+      if (values[slot] == value || (type == STRING && value != null && value.equals(values[slot]))) {
+        return this;
+      }
+      //Only the values change; the other arrays are shared with this version
+      Object[] copy = values.clone();
+      copy[slot] = value;
+      return new PersistentJSON(hashes, keys, copy, types);
+    }
+
+    slot = -1 - slot;
+    int size = keys.length;
+    int[] newHashes = new int[size + 1];
+    String[] newKeys = new String[size + 1];
+    Object[] newValues = new Object[size + 1];
+    byte[] newTypes = new byte[size + 1];
+    System.arraycopy(hashes, 0, newHashes, 0, slot);
+    System.arraycopy(keys, 0, newKeys, 0, slot);
+    System.arraycopy(values, 0, newValues, 0, slot);
+    System.arraycopy(types, 0, newTypes, 0, slot);
+    newHashes[slot] = hash(name, type);
+    newKeys[slot] = name;
+    newValues[slot] = value;
+    newTypes[slot] = type;
+    System.arraycopy(hashes, slot, newHashes, slot + 1, size - slot);
+    System.arraycopy(keys, slot, newKeys, slot + 1, size - slot);
+    System.arraycopy(values, slot, newValues, slot + 1, size - slot);
+    System.arraycopy(types, slot, newTypes, slot + 1, size - slot);
+    return new PersistentJSON(newHashes, newKeys, newValues, newTypes);
+  }
+
+  /**
+   * helper method to combine the hash of a key with its type
+   * @param name String
+   * @param type byte
+   * @return int
+   */
+  private static int hash(String name, byte type) {
+    int h = name.hashCode() * 31 + type;
+    return h ^ (h >>> 16);
+  }
+
+  /**
+   * purpose of this class is to collect the values of a new object and sort them once, instead of copying the
+   * arrays for every value the way setString and setObject on a PersistentJSON do. The setters return the builder so
+   * they can be chained. A builder can be used again after build; later values do not change objects already built.
+   */
+  static final class Builder {
+    private String[] keys = new String[8];
+    private Object[] values = new Object[keys.length];
+    private byte[] types = new byte[keys.length];
+    private int size;
+
+    /**
+     * purpose of this method is to set a string value. Any old value with the same name is overwritten
+     * @param name String
+     * @param value String
+     * @return Builder
+     */
+    Builder setString(String name, String value) {
+      return add(name, value, STRING);
+    }
+
+    /**
+     * purpose of this method is to set an object value. Any old value with the same name is overwritten
+     * @param name String
+     * @param value JSON copied with copyOf when the object is built
+     * @return Builder
+     */
+    Builder setObject(String name, JSON value) {
+      return add(name, value, OBJECT);
+    }
+
+    /**
+     * purpose of this method is to create the object holding every value set so far
+     * @return PersistentJSON
+     */
+    PersistentJSON build() {
+      if (size == 0) {
+        return EMPTY;
+      }
+
+      //Sort slot numbers by hash and, for equal keys, from the last value set to the first
+      long[] order = new long[size];
+      for (int i = 0; i < size; i++) {
+        order[i] = ((long) hash(keys[i], types[i]) << 32) | (0xFFFFFFFFL - i);
+      }
+      Arrays.sort(order);
+
+      int[] hashes = new int[size];
+      String[] sortedKeys = new String[size];
+      Object[] sortedValues = new Object[size];
+      byte[] sortedTypes = new byte[size];
+      int count = 0;
+      for (int i = 0; i < size; i++) {
+        int hash = (int) (order[i] >> 32);
+        int slot = (int) (0xFFFFFFFFL - (order[i] & 0xFFFFFFFFL));
+        if (contains(hashes, sortedKeys, sortedTypes, count, hash, keys[slot], types[slot])) {
+          continue;
+        }
+        hashes[count] = hash;
+        sortedKeys[count] = keys[slot];
+        Object value = values[slot];
+        sortedValues[count] = types[slot] == OBJECT && value != null ? copyOf((JSON) value) : value;
+        sortedTypes[count] = types[slot];
+        count = count + 1;
+      }
+
+      if (count < size) {
+        hashes = Arrays.copyOf(hashes, count);
+        sortedKeys = Arrays.copyOf(sortedKeys, count);
+        sortedValues = Arrays.copyOf(sortedValues, count);
+        sortedTypes = Arrays.copyOf(sortedTypes, count);
+      }
+      return new PersistentJSON(hashes, sortedKeys, sortedValues, sortedTypes);
+    }
+
+    /**
+     * helper method to append a value; duplicates are dropped by build
+     * @param name String
+     * @param value Object
+     * @param type byte
+     * @return Builder
+     */
+    private Builder add(String name, Object value, byte type) {
+      if (name == null) {
+        throw new NullPointerException("name");
+      }
+      if (size == keys.length) {
+        keys = Arrays.copyOf(keys, size * 2);
+        values = Arrays.copyOf(values, size * 2);
+        types = Arrays.copyOf(types, size * 2);
+      }
+      keys[size] = name;
+      values[size] = value;
+      types[size] = type;
+      size = size + 1;
+      return this;
+    }
+
+    /**
+     * helper method to check whether a key and type were already added to the sorted arrays, looking back only over
+     * the slots with the same hash
+     * @param hashes int[]
+     * @param keys String[]
+     * @param types byte[]
+     * @param count int how many slots are filled
+     * @param hash int
+     * @param name String
+     * @param type byte
+     * @return boolean
+     */
+    private static boolean contains(int[] hashes, String[] keys, byte[] types, int count, int hash, String name,
+                                    byte type) {
+      for (int i = count - 1; i >= 0 && hashes[i] == hash; i--) {
+        if (types[i] == type && keys[i].equals(name)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+}
@@ -0,0 +1,186 @@
+// Copyright 2017 Google Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//    http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.codeu.codingchallenge;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * purpose of this class is to give read access to a JSON object, and to every object nested in it, without letting
+ * the caller change anything. Setting a value throws UnsupportedOperationException. Nested objects are wrapped the
+ * first time they are asked for and the wrappers are kept, so reading the same object again, by name or through
+ * forEach, creates nothing. Each view also keeps the visitor it passes to the object behind it, which forEach borrows
+ * while it runs; only a call made while another is still using it gets a visitor of its own.
+ * A view is only as immutable as the object behind it: whoever still holds that object can change it, and the
+ * change shows through.
+ */
+final class ReadOnlyJSON implements JSON {
+  private final JSON json;
+
+  //Views of the nested objects read so far, by name. Created on first use; if two threads race to create it, one
+  //map is lost and its views are simply created again
+  private volatile Map<String, ReadOnlyJSON> children;
+
+  //The visitor forEach uses when no other call is using it, null while one is
+  private volatile Visitor idle;
+
+  private static final AtomicReferenceFieldUpdater<ReadOnlyJSON, Visitor> IDLE =
+      AtomicReferenceFieldUpdater.newUpdater(ReadOnlyJSON.class, Visitor.class, "idle");
+
+  private ReadOnlyJSON(JSON json) {
+    this.json = json;
+  }
+
+  /**
+   * purpose of this method is to get a read only view of the given object
+   * @param json JSON
+   * @return JSON the view, or json itself if it already is one
+   */
+  static JSON of(JSON json) {
+    if (json == null || json instanceof ReadOnlyJSON) {
+      return json;
+    }
+    return new ReadOnlyJSON(json);
+  }
+
+  /**
+   *
+   * @param name String
+   * @return JSON
+   */
+  @Override
+  public JSON getObject(String name) {
+    return view(name, json.getObject(name));
+  }
+
+  /**
+   *
+   * @param name String
+   * @param value JSON
+   * @return JSON
+   */
+  @Override
+  public JSON setObject(String name, JSON value) {
+    throw new UnsupportedOperationException("read only object");
+  }
+
+  /**
+   *
+   * @param name String
+   * @return String
+   */
+  @Override
+  public String getString(String name) {
+    return json.getString(name);
+  }
+
+  /**
+   *
+   * @param name String
+   * @param value String
+   * @return JSON
+   */
+  @Override
+  public JSON setString(String name, String value) {
+    throw new UnsupportedOperationException("read only object");
+  }
+
+  /**
+   *
+   * @param names Collection<String>
+   */
+  @Override
+  public void getObjects(Collection<String> names) {
+    json.getObjects(names);
+  }
+
+  /**
+   *
+   * @param names Collection<String>
+   */
+  @Override
+  public void getStrings(Collection<String> names) {
+    json.getStrings(names);
+  }
+
+  /**
+   *
+   * @param visitor JSONVisitor
+   */
+  @Override
+  public void forEach(JSONVisitor visitor) {
+    Visitor forwarding = IDLE.getAndSet(this, null);
+    if (forwarding == null) {
+      forwarding = new Visitor(this);
+    }
+    forwarding.target = visitor;
+    try {
+      json.forEach(forwarding);
+    } finally {
+      forwarding.target = null;
+      idle = forwarding;
+    }
+  }
+
+  /**
+   * helper method to get the view of a nested object, reusing the one made before unless the object has been
+   * replaced since
+   * @param name String
+   * @param child JSON
+   * @return JSON
+   */
+  private JSON view(String name, JSON child) {
+    if (child == null || child instanceof ReadOnlyJSON) {
+      return child;
+    }
+    Map<String, ReadOnlyJSON> map = children;
+    if (map == null) {
+      map = new ConcurrentHashMap<>();
+      children = map;
+    }
+    ReadOnlyJSON view = map.get(name);
+    if (view == null || view.json != child) {
+      view = new ReadOnlyJSON(child);
+      map.put(name, view);
+    }
+    return view;
+  }
+
+  /**
+   * purpose of this class is to pass the values of the object behind a view on to a visitor, with nested objects
+   * replaced by their views. The target is set for the length of one forEach call
+   */
+  private static final class Visitor implements JSONVisitor {
+    private final ReadOnlyJSON parent;
+    private JSONVisitor target;
+
+    Visitor(ReadOnlyJSON parent) {
+      this.parent = parent;
+    }
+
+    @Override
+    public void visitString(String name, String value) {
+      target.visitString(name, value);
+    }
+
+    @Override
+    public void visitObject(String name, JSON value) {
+      target.visitObject(name, parent.view(name, value));
+    }
+  }
+
+}
@@ -0,0 +1,224 @@
+// Copyright 2017 Google Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//    http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.codeu.codingchallenge;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * purpose of this class is to read a JSON-lite document from a Reader through a fixed size char buffer that is refilled
+ * as it is used up, so the document never has to be held in memory as a whole. A string that lies inside the buffer is
+ * copied out once, or not at all when it is only looked at through readText or found in a KeyTable; only a string that
+ * crosses a refill or has to be decoded is collected in a reusable spill array first.
+ */
+final class ReaderInput extends JSONInput {
+  static final int DEFAULT_BUFFER_SIZE = 8192;
+
+  private final char[] buffer;
+
+  //Characters of the last string read if it crossed a refill or had to be decoded
+  private char[] spill = new char[64];
+  private int spillLength;
+
+  //Where in buffer the last string read lies, if it is there, and the view readText returns
+  private int textStart;
+  private int textEnd;
+  private final TextView view = new TextView();
+
+  //The reader being parsed, the index of the next character to look at and the number of valid characters in buffer
+  private Reader reader;
+  private int pos;
+  private int limit;
+
+  //Number of characters read into buffer before the current ones and the offset of the last token
+  private long consumed;
+  private long tokenStart;
+
+  ReaderInput() {
+    this(DEFAULT_BUFFER_SIZE);
+  }
+
+  ReaderInput(int bufferSize) {
+    buffer = new char[bufferSize];
+  }
+
+  /**
+   * purpose of this method is to start reading from the given reader, dropping anything left from a previous reader
+   * @param reader Reader
+   * @return ReaderInput this
+   */
+  ReaderInput reset(Reader reader) {
+    this.reader = reader;
+    pos = 0;
+    limit = 0;
+    consumed = 0;
+    tokenStart = 0;
+    return this;
+  }
+
+  @Override
+  int nextToken() throws IOException {
+    while (pos < limit || fill()) {
+      char c = buffer[pos++];
+      if (!isWhitespace(c)) {
+        tokenStart = consumed + pos - 1;
+        return c;
+      }
+    }
+
+    tokenStart = consumed + pos;
+    return -1;
+  }
+
+  @Override
+  long tokenOffset() {
+    return tokenStart;
+  }
+
+  @Override
+  int unitAt(long offset) {
+    //Only the characters still in buffer are known
+    return offset >= consumed && offset < consumed + limit ? buffer[(int) (offset - consumed)] : -1;
+  }
+
+  @Override
+  String readString() throws IOException {
+    if (scanString()) {
+      return new String(buffer, textStart, textEnd - textStart);
+    }
+    return new String(spill, 0, spillLength);
+  }
+
+  @Override
+  CharSequence readText() throws IOException {
+    if (scanString()) {
+      return view.set(buffer, textStart, textEnd);
+    }
+    return view.set(spill, 0, spillLength);
+  }
+
+  @Override
+  String readKey(KeyTable table) throws IOException {
+    if (scanString()) {
+      return table.intern(buffer, textStart, textEnd);
+    }
+    return table.intern(spill, 0, spillLength);
+  }
+
+  @Override
+  void skipString() throws IOException {
+    boolean escaped = false;
+    while (pos < limit || fill()) {
+      char c = buffer[pos++];
+      if (escaped) {
+        if (!validEscapedCharacter(c)) {
+          throw error(EXPECTED_STRING);
+        }
+        escaped = false;
+      }
+      else if (c == '\\') {
+        escaped = true;
+      }
+      else if (c == '"') {
+        return;
+      }
+    }
+
+    throw error(EXPECTED_STRING);
+  }
+
+  /**
+   * helper method for readString, readText and readKey. Reads a string and leaves its characters either as written in
+   * buffer from textStart up to textEnd or, if it crossed a refill or contains escapes or whitespace to drop, decoded
+   * in spill. The buffer itself is never changed, so errors can still look back at it.
+   * @return boolean true if the string is in buffer, false if it is in spill
+   * @throws IOException if the string is not terminated or contains an invalid escape
+   */
+  private boolean scanString() throws IOException {
+    int start = pos;
+    boolean escaped = false;
+    boolean encoded = false;
+    spillLength = 0;
+    while (true) {
+      if (pos == limit) {
+        //Keep what has been read so far before the buffer is overwritten
+        appendToSpill(start, pos);
+        if (!fill()) {
+          throw error(EXPECTED_STRING);
+        }
+        start = 0;
+      }
+
+      char c = buffer[pos++];
+      if (escaped) {
+        if (!validEscapedCharacter(c)) {
+          throw error(EXPECTED_STRING);
+        }
+        escaped = false;
+      }
+      else if (c == '\\') {
+        escaped = true;
+        encoded = true;
+      }
+      else if (c == '"') {
+        if (spillLength == 0 && !encoded) {
+          textStart = start;
+          textEnd = pos - 1;
+          return true;
+        }
+        appendToSpill(start, pos - 1);
+        if (encoded) {
+          spillLength = unescape(spill, 0, spillLength, dropWhitespace);
+        }
+        return false;
+      }
+      else if ((c <= ' ' || c >= 0x80) && dropWhitespace && isWhitespace(c)) {
+        encoded = true;
+      }
+    }
+  }
+
+  /**
+   * helper method to add characters start up to end of buffer to spill
+   * @param start int
+   * @param end int
+   */
+  private void appendToSpill(int start, int end) {
+    int length = end - start;
+    if (spill.length - spillLength < length) {
+      spill = Arrays.copyOf(spill, Math.max(spillLength + length, spill.length * 2));
+    }
+    System.arraycopy(buffer, start, spill, spillLength, length);
+    spillLength = spillLength + length;
+  }
+
+  /**
+   * helper method to refill the buffer from the reader once every character in it has been used
+   * @return boolean false if the reader has no more characters
+   * @throws IOException if the reader fails
+   */
+  private boolean fill() throws IOException {
+    int read = reader.read(buffer, 0, buffer.length);
+    while (read == 0) {
+      read = reader.read(buffer, 0, buffer.length);
+    }
+    consumed = consumed + limit;
+    pos = 0;
+    limit = Math.max(read, 0);
+    return read > 0;
+  }
+}
@@ -0,0 +1,186 @@
+// Copyright 2017 Google Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//    http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.codeu.codingchallenge;
+
+import java.io.IOException;
+
+/**
+ * purpose of this class is to read a JSON-lite document that is already held in a String. Strings are cut out of the
+ * document with a single substring, or not at all when they are only looked at through readText. Only the few strings
+ * that contain escapes are copied into a reusable buffer first, where the escapes are decoded.
+ */
+final class StringInput extends JSONInput {
+  //The string being parsed and the index of the next character to look at
+  private String in;
+  private int pos;
+
+  //Index of the character last returned by nextToken
+  private int tokenStart;
+
+  //Where the contents of the last string read by skipString start and end and whether they have to be decoded, because
+  //they contain escapes or whitespace that has to be dropped
+  private int stringStart;
+  private int stringEnd;
+  private boolean stringEncoded;
+
+  //The decoded characters of the last string that had to be decoded
+  private char[] decoded = new char[64];
+  private int decodedLength;
+
+  //Points at the last string read by readText
+  private final TextView view = new TextView();
+
+  /**
+   * purpose of this method is to start reading the given string from its first character
+   * @param in String
+   * @return StringInput this
+   */
+  StringInput reset(String in) {
+    this.in = in;
+    view.set((CharSequence) null, 0, 0);
+    pos = 0;
+    tokenStart = 0;
+    return this;
+  }
+
+  @Override
+  int nextToken() {
+    while (pos < in.length()) {
+      char c = in.charAt(pos++);
+      if (!isWhitespace(c)) {
+        tokenStart = pos - 1;
+        return c;
+      }
+    }
+
+    tokenStart = pos;
+    return -1;
+  }
+
+  @Override
+  long tokenOffset() {
+    return tokenStart;
+  }
+
+  @Override
+  int unitAt(long offset) {
+    return in.charAt((int) offset);
+  }
+
+  @Override
+  String readString() throws IOException {
+    skipString();
+    if (stringEncoded) {
+      decode();
+      return new String(decoded, 0, decodedLength);
+    }
+    return in.substring(stringStart, stringEnd);
+  }
+
+  @Override
+  CharSequence readText() throws IOException {
+    skipString();
+    if (stringEncoded) {
+      decode();
+      return view.set(decoded, 0, decodedLength);
+    }
+    return view.set(in, stringStart, stringEnd);
+  }
+
+  @Override
+  String readKey(KeyTable table) throws IOException {
+    skipString();
+    if (stringEncoded) {
+      decode();
+      return table.intern(decoded, 0, decodedLength);
+    }
+    return table.intern(in, stringStart, stringEnd);
+  }
+
+  /**
+   * helper method to copy the last string read by skipString into decoded and decode it there
+   */
+  private void decode() {
+    int length = stringEnd - stringStart;
+    if (decoded.length < length) {
+      decoded = new char[Math.max(length, decoded.length * 2)];
+    }
+    in.getChars(stringStart, stringEnd, decoded, 0);
+    decodedLength = unescape(decoded, 0, length, dropWhitespace);
+  }
+
+  /**
+   * purpose of this method is to check a string whose opening quote has just been returned by nextToken, the same way
+   * readString does, without cutting it out of the document. Where it starts and ends are kept for stringStart and
+   * stringEnd.
+   * @throws IOException if the string is not terminated or contains an invalid escape
+   */
+  @Override
+  void skipString() throws IOException {
+    int start = pos;
+    boolean encoded = false;
+    while (pos < in.length()) {
+      char c = in.charAt(pos++);
+      if (c == '"') {
+        stringStart = start;
+        stringEnd = pos - 1;
+        stringEncoded = encoded;
+        return;
+      }
+      if (c == '\\') {
+        if (pos == in.length() || !validEscapedCharacter(in.charAt(pos))) {
+          throw error(EXPECTED_STRING);
+        }
+        pos = pos + 1;
+        encoded = true;
+      }
+      else if ((c <= ' ' || c >= 0x80) && dropWhitespace && isWhitespace(c)) {
+        encoded = true;
+      }
+    }
+
+    throw error(EXPECTED_STRING);
+  }
+
+  /**
+   * @return int the index of the first character inside the last string read by skipString
+   */
+  int stringStart() {
+    return stringStart;
+  }
+
+  /**
+   * @return int the index of the closing quote of the last string read by skipString
+   */
+  int stringEnd() {
+    return stringEnd;
+  }
+
+  /**
+   * @return boolean true if the last string read by skipString contains escapes or whitespace that has to be dropped,
+   * so it cannot be used as written
+   */
+  boolean stringEncoded() {
+    return stringEncoded;
+  }
+
+  /**
+   * @return int the index of the next character to look at
+   */
+  int position() {
+    return pos;
+  }
+}
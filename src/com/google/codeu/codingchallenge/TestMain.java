@@ -14,8 +14,27 @@
 
 package com.google.codeu.codingchallenge;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 final class TestMain {
 
@@ -47,7 +66,11 @@ final class TestMain {
         final JSONParser parser = factory.parser();
         final JSON obj = parser.parse("{ \"name\":\"sam doe\" }");
 
-        Asserts.isEqual("samdoe", obj.getString("name"));
+        Asserts.isEqual("sam doe", obj.getString("name"));
+
+        //Whitespace inside of strings is only dropped when asked for
+        final JSONParser stripping = new MyJSONParser(MyJSONParser.DEFAULT_MAX_DEPTH, null, null, true);
+        Asserts.isEqual("samdoe", stripping.parse("{ \"name\":\"sam doe\" }").getString("name"));
      }
     });
 
@@ -66,7 +89,1092 @@ final class TestMain {
       }
     });
 
-    tests.run(new JSONFactory(){
+    tests.add("Mixed Values", new Test() {
+      @Override
+      public void run(JSONFactory factory) throws Exception {
+
+        final JSONParser parser = factory.parser();
+        final JSON obj = parser.parse(
+            "{ \"id\":\"7\", \"name\":{\"first\":\"sam\"}, \"tag\":\"a\\tb\", \"x\":{ } }");
+
+        Asserts.isEqual("7", obj.getString("id"));
+        Asserts.isEqual("sam", obj.getObject("name").getString("first"));
+        Asserts.isEqual("a\tb", obj.getString("tag"));
+        Asserts.isNotNull(obj.getObject("x"));
+      }
+    });
+
+    tests.add("Invalid Objects", new Test() {
+      @Override
+      public void run(JSONFactory factory) throws Exception {
+
+        final String[] invalid = {
+          "",
+          "{",
+          "{ \"first\":\"sam\" \"last\":\"doe\" }",
+          "{ name:\"sam doe\" }",
+          "{ \"name\":\"sam\", }",
+          "{ \"name\":\"\\g\" }",
+          "{ \"name\":\"sam\" } }",
+          "{ \"name\":{ \"first\":\"sam\" }"
+        };
+
+        for (final String in : invalid) {
+          boolean failed = false;
+          try {
+            factory.parser().parse(in);
+          } catch (IOException ex) {
+            failed = true;
+          }
+          Asserts.isTrue(failed, "Expected parse failure for " + in);
+        }
+      }
+    });
+
+    tests.add("Long And Deep Objects", new Test() {
+      @Override
+      public void run(JSONFactory factory) throws Exception {
+
+        final StringBuilder wide = new StringBuilder("{");
+        for (int i = 0; i < 20000; i++) {
+          wide.append(i == 0 ? "" : ",").append("\"k").append(i).append("\":\"v").append(i).append("\"");
+        }
+        final JSON wideObj = factory.parser().parse(wide.append("}").toString());
+        Asserts.isEqual("v19999", wideObj.getString("k19999"));
+
+        final int depth = 100000;
+        final StringBuilder deep = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+          deep.append("{\"a\":");
+        }
+        deep.append("\"x\"");
+        for (int i = 0; i < depth; i++) {
+          deep.append("}");
+        }
+        JSON obj = new MyJSONParser(depth).parse(deep.toString());
+        for (int i = 1; i < depth; i++) {
+          obj = obj.getObject("a");
+        }
+        Asserts.isEqual("x", obj.getString("a"));
+
+        boolean failed = false;
+        try {
+          new MyJSONParser(depth - 1).parse(deep.toString());
+        } catch (IOException ex) {
+          failed = true;
+        }
+        Asserts.isTrue(failed, "Expected maximum depth to be enforced");
+      }
+    });
+
+    tests.add("Reader And Stream Input", new Test() {
+      @Override
+      public void run(JSONFactory factory) throws Exception {
+
+        final StringBuilder doc = new StringBuilder("{ \"long\":\"");
+        for (int i = 0; i < 20000; i++) {
+          doc.append(i % 10);
+        }
+        doc.append("\", \"name\":{\"first\":\"s\u00e4m\", \"last\":\"d\\\"oe\" } }");
+
+        final MyJSONParser parser = new MyJSONParser();
+        final JSON fromReader = parser.parse(new StringReader(doc.toString()));
+        final JSON fromStream = parser.parse(new ByteArrayInputStream(doc.toString().getBytes("UTF-8")));
+
+        for (final JSON obj : new JSON[] { fromReader, fromStream }) {
+          Asserts.isEqual(20000, obj.getString("long").length());
+          Asserts.isEqual("s\u00e4m", obj.getObject("name").getString("first"));
+          Asserts.isEqual("d\"oe", obj.getObject("name").getString("last"));
+        }
+      }
+    });
+
+    tests.add("UTF-8 Byte Input", new Test() {
+      @Override
+      public void run(JSONFactory factory) throws Exception {
+
+        final String doc = "\u2003{ \"n\u00e4me\":{\"first\":\"\u65e5\u672c\", \"last\":\"d\\\"oe\" } }";
+        final byte[] bytes = ("xx" + doc + "yy").getBytes("UTF-8");
+        final int length = bytes.length - 4;
+
+        final ByteBuffer direct = ByteBuffer.allocateDirect(length);
+        direct.put(bytes, 2, length).flip();
+
+        final MyJSONParser parser = new MyJSONParser();
+        final JSON[] parsed = {
+          parser.parse(bytes, 2, length),
+          parser.parse(ByteBuffer.wrap(bytes, 2, length)),
+          parser.parse(direct)
+        };
+
+        for (final JSON obj : parsed) {
+          Asserts.isEqual("\u65e5\u672c", obj.getObject("n\u00e4me").getString("first"));
+          Asserts.isEqual("d\"oe", obj.getObject("n\u00e4me").getString("last"));
+        }
+        Asserts.isEqual(0, direct.position());
+      }
+    });
+
+    tests.add("Mapped File Input", new Test() {
+      @Override
+      public void run(JSONFactory factory) throws Exception {
+
+        final String doc = "{ \"n\u00e4me\":{\"first\":\"\u65e5\u672c\", \"last\":\"d\\\"oe\" }, \"x\":\"\" }";
+        final Path file = Files.createTempFile("json-lite", ".json");
+        try {
+          Files.write(file, doc.getBytes("UTF-8"));
+
+          final MyJSONParser parser = new MyJSONParser();
+          final JSON whole = parser.parseFile(file);
+          Asserts.isEqual("\u65e5\u672c", whole.getObject("n\u00e4me").getString("first"));
+
+          //Tiny windows split every string and character across several mappings
+          for (int windowSize = 1; windowSize < 8; windowSize++) {
+            final JSON obj = parser.parseFile(file, windowSize);
+            Asserts.isEqual("\u65e5\u672c", obj.getObject("n\u00e4me").getString("first"));
+            Asserts.isEqual("d\"oe", obj.getObject("n\u00e4me").getString("last"));
+            Asserts.isEqual("", obj.getString("x"));
+          }
+        } finally {
+          Files.delete(file);
+        }
+      }
+    });
+
+    tests.add("Lazy Objects", new Test() {
+      @Override
+      public void run(JSONFactory factory) throws Exception {
+
+        final JSONParser parser = new LazyJSONParser();
+        final JSON obj = parser.parse(
+            "{ \"id\":\"7\", \"name\":{\"first\":\"sam\", \"last\":\"doe\"}, \"id\":\"8\", " +
+            "\"x\":{ }, \"s p\":\"a b\" }");
+
+        Asserts.isEqual("8", obj.getString("id"));
+        Asserts.isEqual("a b", obj.getString("s p"));
+        final JSONParser stripping = new LazyJSONParser(MyJSONParser.DEFAULT_MAX_DEPTH, true);
+        Asserts.isEqual("ab", stripping.parse("{ \"s p\":\"a b\" }").getString("sp"));
+        final JSON repeated = stripping.parse(
+            "{ \"s p\":\"1\", \"o\":{ \"k\":\"a\", \"k\":\"b\" }, \"sp\":\"2\", \"o\":\"s\" }");
+        Asserts.isEqual("2", repeated.getString("sp"));
+        Asserts.isEqual("b", repeated.getObject("o").getString("k"));
+        Asserts.isEqual("s", repeated.getString("o"));
+        Asserts.isEqual(null, obj.getString("name"));
+        Asserts.isEqual("doe", obj.getObject("name").getString("last"));
+        Asserts.isTrue(obj.getObject("name") == obj.getObject("name"), "Expected nested objects to be created once");
+
+        final Collection<String> strings = new HashSet<>();
+        obj.getStrings(strings);
+        Asserts.isEqual(new HashSet<>(Arrays.asList("id", "s p")), strings);
+
+        final Collection<String> objects = new ArrayList<>();
+        obj.getObjects(objects);
+        Asserts.isEqual(Arrays.asList("name", "x"), objects);
+
+        Asserts.isTrue(obj.setString("id", "9") == obj, "Expected set to return the same object");
+        Asserts.isEqual("9", obj.getString("id"));
+        Asserts.isEqual("sam", obj.getObject("name").getString("first"));
+
+        boolean failed = false;
+        try {
+          parser.parse("{ \"name\":{ \"first\":\"sam\" } \"x\":\"y\" }");
+        } catch (IOException ex) {
+          failed = true;
+        }
+        Asserts.isTrue(failed, "Expected parse failure");
+      }
+    });
+
+    tests.add("Compact Objects", new Test() {
+      @Override
+      public void run(JSONFactory factory) throws Exception {
+
+        final JSON obj = new CompactJSON();
+        for (int i = 0; i < 100; i++) {
+          obj.setString("k" + i, "v" + i);
+          obj.setObject("k" + i, new CompactJSON().setString("i", "" + i));
+        }
+        obj.setString("k50", "changed");
+
+        for (int i = 0; i < 100; i++) {
+          Asserts.isEqual(i == 50 ? "changed" : "v" + i, obj.getString("k" + i));
+          Asserts.isEqual("" + i, obj.getObject("k" + i).getString("i"));
+        }
+        Asserts.isEqual(null, obj.getString("k100"));
+
+        final Collection<String> strings = new HashSet<>();
+        obj.getStrings(strings);
+        Asserts.isEqual(100, strings.size());
+
+        final JSONParser parser = new MyJSONParser(MyJSONParser.DEFAULT_MAX_DEPTH, new JSONFactory() {
+          @Override
+          public JSON object() {
+            return new CompactJSON();
+          }
+
+          @Override
+          public JSONParser parser() {
+            return new MyJSONParser(MyJSONParser.DEFAULT_MAX_DEPTH, this);
+          }
+        });
+        final JSON parsed = parser.parse("{ \"name\":{\"first\":\"sam\", \"last\":\"doe\" } }");
+        Asserts.isTrue(parsed instanceof CompactJSON, "Expected the factory to create the objects");
+        Asserts.isEqual("doe", parsed.getObject("name").getString("last"));
+      }
+    });
+
+    tests.add("Shared Keys", new Test() {
+      @Override
+      public void run(JSONFactory factory) throws Exception {
+
+        final KeyTable table = new KeyTable();
+        final MyJSONParser parser = new MyJSONParser(MyJSONParser.DEFAULT_MAX_DEPTH, null, table);
+        final String doc = "{ \"name\":{\"first\":\"sam\", \"l ast\":\"doe\" } }";
+        final JSON[] parsed = {
+          parser.parse(doc),
+          parser.parse(new String(doc.toCharArray())),
+          parser.parse(new StringReader(doc)),
+          parser.parse(doc.getBytes("UTF-8"), 0, doc.length())
+        };
+
+        final Collection<String> first = new ArrayList<>();
+        parsed[0].getObject("name").getStrings(first);
+        for (final JSON obj : parsed) {
+          final Collection<String> keys = new ArrayList<>();
+          obj.getObject("name").getStrings(keys);
+          Asserts.isEqual(first.size(), keys.size());
+          for (final String key : keys) {
+            Asserts.isTrue(table.intern(key) == key, "Expected the shared instance of " + key);
+          }
+          Asserts.isEqual("doe", obj.getObject("name").getString("l ast"));
+        }
+        Asserts.isTrue(table.intern(new StringBuilder("xnamex"), 1, 5) == table.intern("name"),
+            "Expected ranges to find the shared instance");
+
+        //A small table never holds more keys than it has room for but still returns equal keys
+        final KeyTable small = new KeyTable(4);
+        for (int i = 0; i < 100; i++) {
+          Asserts.isEqual("k" + i, small.intern("k" + i));
+        }
+      }
+    });
+
+    tests.add("Shared Parser", new Test() {
+      @Override
+      public void run(JSONFactory factory) throws Exception {
+
+        final JSONParser parser = factory.parser();
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+          final List<Future<String>> results = new ArrayList<>();
+          for (int i = 0; i < 200; i++) {
+            final String value = "v" + i;
+            final String doc = "{ \"a\":{ \"b\":{ \"c\":\"" + value + "\" } }, \"d\":\"" + value + "\" }";
+            results.add(executor.submit(new Callable<String>() {
+              @Override
+              public String call() throws Exception {
+                String result = null;
+                for (int j = 0; j < 50; j++) {
+                  final JSON obj = parser.parse(doc);
+                  result = obj.getObject("a").getObject("b").getString("c") + obj.getString("d");
+                }
+                return result;
+              }
+            }));
+          }
+
+          for (int i = 0; i < results.size(); i++) {
+            Asserts.isEqual("v" + i + "v" + i, results.get(i).get());
+          }
+        } finally {
+          executor.shutdown();
+        }
+      }
+    });
+
+    tests.add("Batch Parsing", new Test() {
+      @Override
+      public void run(JSONFactory factory) throws Exception {
+
+        final List<String> documents = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+          documents.add(i % 7 == 3 ? "{ \"id\":" + i + " }" : "{ \"id\":\"" + i + "\" }");
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+          for (final BatchParser batchParser : new BatchParser[] {
+              new BatchParser(factory.parser()), new BatchParser(factory.parser(), executor, 3) }) {
+            final List<ParseResult> results = batchParser.parseAll(documents);
+            Asserts.isEqual(documents.size(), results.size());
+            for (int i = 0; i < results.size(); i++) {
+              final ParseResult result = results.get(i);
+              Asserts.isEqual(i % 7 != 3, result.isValid());
+              if (result.isValid()) {
+                Asserts.isEqual("" + i, result.getJSON().getString("id"));
+              }
+              else {
+                Asserts.isNotNull(result.getError());
+              }
+            }
+          }
+        } finally {
+          executor.shutdown();
+        }
+
+        boolean failed = false;
+        try {
+          new BatchParser(new JSONParser() {
+            @Override
+            public JSON parse(String object) {
+              throw new StackOverflowError();
+            }
+          }).parseAll(documents);
+        } catch (StackOverflowError ex) {
+          failed = true;
+        }
+        Asserts.isTrue(failed, "an Error thrown while parsing a chunk should be rethrown");
+      }
+    });
+
+    tests.add("Newline Delimited Input", new Test() {
+      @Override
+      public void run(JSONFactory factory) throws Exception {
+
+        final StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+          if (i % 10 == 5) {
+            input.append("{ \"id\":\"").append(i).append("\" \"x\":\"y\" }\r\n");
+          }
+          else {
+            input.append("{ \"id\":\"").append(i).append("\", \"pad\":\"");
+            for (int j = 0; j < i; j++) {
+              input.append('p');
+            }
+            input.append("\" }\r\n");
+          }
+          if (i % 3 == 0) {
+            input.append("  \n");
+          }
+        }
+
+        //A tiny buffer makes records cross refills
+        final NDJSONReader reader = new NDJSONReader(new StringReader(input.toString()), new MyJSONParser(), 16);
+        int count = 0;
+        int failures = 0;
+        while (true) {
+          try {
+            final JSON obj = reader.next();
+            if (obj == null) {
+              break;
+            }
+            Asserts.isEqual("" + count, obj.getString("id"));
+          } catch (IOException ex) {
+            failures = failures + 1;
+          }
+          count = count + 1;
+        }
+        Asserts.isEqual(100, count);
+        Asserts.isEqual(10, failures);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+          final List<Long> lines = new ArrayList<>();
+          final List<ParseResult> results = new ArrayList<>();
+          final NDJSONReader.Callback callback = new NDJSONReader.Callback() {
+            @Override
+            public void record(long line, ParseResult result) {
+              lines.add(line);
+              results.add(result);
+            }
+          };
+          new NDJSONReader(new StringReader(input.toString())).readAll(callback);
+          new NDJSONReader(new StringReader(input.toString()), new MyJSONParser(), 16).readAll(callback, executor, 3);
+
+          Asserts.isEqual(200, results.size());
+          for (int i = 0; i < 200; i++) {
+            Asserts.isEqual(i % 10 != 5, results.get(i).isValid());
+            Asserts.isEqual(lines.get(i % 100), lines.get(i));
+          }
+          Asserts.isEqual(5L, lines.get(3));
+
+          //No more than the window of records is read ahead of the callback. With a one character buffer every
+          //newline taken from the input belongs to a line that has been read.
+          final StringBuilder records = new StringBuilder();
+          for (int i = 0; i < 20; i++) {
+            records.append("{ \"id\":\"").append(i).append("\" }\n");
+          }
+          final StringReader source = new StringReader(records.toString());
+          final int[] linesRead = new int[1];
+          final Reader counting = new Reader() {
+            @Override
+            public int read(char[] chars, int offset, int length) throws IOException {
+              final int read = source.read(chars, offset, length);
+              for (int i = 0; i < read; i++) {
+                linesRead[0] = linesRead[0] + (chars[offset + i] == '\n' ? 1 : 0);
+              }
+              return read;
+            }
+
+            @Override
+            public void close() {
+            }
+          };
+          final int[] delivered = new int[1];
+          new NDJSONReader(counting, new MyJSONParser(), 1).readAll(new NDJSONReader.Callback() {
+            @Override
+            public void record(long line, ParseResult result) {
+              Asserts.isTrue(linesRead[0] - delivered[0] <= 3, "more than 3 records read ahead");
+              delivered[0] = delivered[0] + 1;
+            }
+          }, executor, 3);
+          Asserts.isEqual(20, delivered[0]);
+
+          boolean failed = false;
+          try {
+            new NDJSONReader(new StringReader(input.toString()), new MyJSONParser(10, new JSONFactory() {
+              @Override
+              public JSON object() {
+                throw new StackOverflowError();
+              }
+
+              @Override
+              public JSONParser parser() {
+                return null;
+              }
+            }), 16).readAll(callback, executor, 3);
+          } catch (StackOverflowError ex) {
+            failed = true;
+          }
+          Asserts.isTrue(failed, "Error thrown while parsing a record was not rethrown");
+        } finally {
+          executor.shutdown();
+        }
+      }
+    });
+
+    tests.add("Event Handler", new Test() {
+      @Override
+      public void run(JSONFactory factory) throws Exception {
+
+        final StringBuilder events = new StringBuilder();
+        final JSONHandler handler = new JSONHandler() {
+          @Override
+          public void startObject(String key) {
+            events.append('{').append(key);
+          }
+
+          @Override
+          public void endObject() {
+            events.append('}');
+          }
+
+          @Override
+          public void stringValue(String key, CharSequence value) {
+            events.append(key).append('=').append(value).append(';');
+          }
+        };
+
+        final String input = "{ \"name\":{\"first\":\"sam\", \"last\":\"doe\"}, \"id\":\"1 2\", \"e\":{} }";
+        final String expected = "{null{namefirst=sam;last=doe;}id=1 2;{e}}";
+        final JSONEventParser parser = new MyJSONParser();
+        parser.parse(input, handler);
+        Asserts.isEqual(expected, events.toString());
+
+        events.setLength(0);
+        parser.parse(new StringReader(input), handler);
+        Asserts.isEqual(expected, events.toString());
+
+        events.setLength(0);
+        final byte[] bytes = input.getBytes("UTF-8");
+        parser.parse(bytes, 0, bytes.length, handler);
+        Asserts.isEqual(expected, events.toString());
+
+        //The valid prefix is reported before the error
+        events.setLength(0);
+        boolean failed = false;
+        try {
+          parser.parse("{ \"a\":\"b\", \"c\":{ \"d\" } }", handler);
+        } catch (IOException ex) {
+          failed = true;
+        }
+        Asserts.isTrue(failed, "Expected parse failure for an invalid document");
+        Asserts.isEqual("{nulla=b;{c", events.toString());
+      }
+    });
+
+    tests.add("Cursor", new Test() {
+      @Override
+      public void run(JSONFactory factory) throws Exception {
+
+        final String input = "{ \"skip\":{\"a\":{\"b\":\"}{\\\"\"}}, \"name\":{\"first\":\"sam\", \"last\":\"doe\"}, "
+            + "\"id\":\"1 2\" }";
+        final MyJSONParser parser = new MyJSONParser();
+        final byte[] bytes = input.getBytes("UTF-8");
+        final JSONCursor[] cursors = {
+            parser.cursor(input), parser.cursor(new StringReader(input)), parser.cursor(bytes, 0, bytes.length) };
+        for (final JSONCursor cursor : cursors) {
+          Asserts.isEqual(JSONCursor.START_OBJECT, cursor.nextToken());
+          Asserts.isEqual(null, cursor.currentKey());
+
+          Asserts.isEqual(JSONCursor.START_OBJECT, cursor.nextToken());
+          Asserts.isEqual("skip", cursor.currentKey());
+          cursor.skipChildren();
+          Asserts.isEqual(JSONCursor.END_OBJECT, cursor.currentToken());
+          Asserts.isEqual(1, cursor.depth());
+
+          Asserts.isEqual(JSONCursor.START_OBJECT, cursor.nextToken());
+          Asserts.isEqual("name", cursor.currentKey());
+          Asserts.isEqual(JSONCursor.STRING, cursor.nextToken());
+          Asserts.isEqual("first", cursor.currentKey());
+          Asserts.isEqual("sam", cursor.currentString());
+          Asserts.isEqual(JSONCursor.STRING, cursor.nextToken());
+          Asserts.isEqual("doe", cursor.currentString());
+          Asserts.isEqual(JSONCursor.END_OBJECT, cursor.nextToken());
+
+          Asserts.isEqual(JSONCursor.STRING, cursor.nextToken());
+          Asserts.isEqual("id", cursor.currentKey());
+          Asserts.isEqual("1 2", cursor.currentString());
+          Asserts.isEqual(JSONCursor.END_OBJECT, cursor.nextToken());
+          Asserts.isEqual(JSONCursor.END_DOCUMENT, cursor.nextToken());
+          Asserts.isEqual(JSONCursor.END_DOCUMENT, cursor.nextToken());
+        }
+
+        final String[] invalid = { "{ \"a\":{ \"b\":\"c\" }", "{ \"a\":{ x } }", "{ \"a\":\"b\" } x" };
+        for (final String in : invalid) {
+          final JSONCursor cursor = parser.cursor(in);
+          boolean failed = false;
+          try {
+            while (cursor.nextToken() != JSONCursor.END_DOCUMENT) {
+              cursor.skipChildren();
+            }
+          } catch (IOException ex) {
+            failed = true;
+          }
+          Asserts.isTrue(failed, "Expected cursor failure for " + in);
+        }
+      }
+    });
+
+    tests.add("Validation", new Test() {
+      @Override
+      public void run(JSONFactory factory) throws Exception {
+
+        final MyJSONParser parser = new MyJSONParser(3);
+        final String[] valid = { "{}", "{ \"a\":\"b\\n\", \"c\":{ \"d\":{} } }\n" };
+        for (final String in : valid) {
+          Asserts.isTrue(parser.validate(in) == ValidationResult.VALID, "Expected " + in + " to be valid");
+          Asserts.isTrue(parser.validate(in.getBytes("UTF-8")).isValid(), "Expected " + in + " to be valid");
+        }
+
+        //Each invalid document with the offset of its first problem
+        final Object[][] invalid = {
+            { "", 0 }, { "  x", 2 }, { "{ \"a\" \"b\" }", 6 }, { "{ \"a\":\"b\" \"c\":\"d\" }", 10 },
+            { "{ \"a\":\"b\\x\" }", 6 }, { "{ \"a\":\"b\", }", 11 }, { "{ \"a\":{ \"b\":{ \"c\":{} } } }", 18 },
+            { "{} {}", 3 }, { "{ \"\u00e9\":x }", 6 } };
+        for (final Object[] in : invalid) {
+          final ValidationResult fromString = parser.validate((String) in[0]);
+          Asserts.isTrue(!fromString.isValid(), "Expected " + in[0] + " to be invalid");
+          Asserts.isEqual(((Integer) in[1]).longValue(), fromString.getOffset());
+          Asserts.isNotNull(fromString.getReason());
+
+          //Offsets in bytes only differ from offsets in characters after the \u00e9
+          final ValidationResult fromBytes = parser.validate(((String) in[0]).getBytes("UTF-8"));
+          Asserts.isEqual(fromString.getReason(), fromBytes.getReason());
+          final int extraBytes = ((String) in[0]).contains("\u00e9") ? 1 : 0;
+          Asserts.isEqual(fromString.getOffset() + extraBytes, fromBytes.getOffset());
+
+          boolean failed = false;
+          try {
+            parser.parse((String) in[0]);
+          } catch (IOException ex) {
+            failed = true;
+          }
+          Asserts.isTrue(failed, "Expected parse failure for " + in[0]);
+        }
+      }
+    });
+
+    tests.add("Error Positions", new Test() {
+      @Override
+      public void run(JSONFactory factory) throws Exception {
+
+        final MyJSONParser parser = new MyJSONParser(2);
+        final String[] inputs = {
+            "{\n  \"a\":\"b\",\n  \"c\" \"d\"\n}", "{\n  \"a\":{ \"b\":{} }\n}", "{ \"a\":\"b\\x\" }", "{}\n\n  }" };
+        final String[] expected = { JSONInput.EXPECTED_COLON, null, JSONInput.EXPECTED_STRING, JSONInput.EXPECTED_END };
+        final long[][] positions = { { 19, 3, 7 }, { 14, 2, 13 }, { 6, 1, 7 }, { 6, 3, 3 } };
+        for (int i = 0; i < inputs.length; i++) {
+          final byte[] bytes = inputs[i].getBytes("UTF-8");
+          for (int j = 0; j < 3; j++) {
+            JSONParseException error = null;
+            try {
+              if (j == 0) {
+                parser.parse(inputs[i]);
+              }
+              else if (j == 1) {
+                parser.parse(new StringReader(inputs[i]));
+              }
+              else {
+                parser.parse(bytes, 0, bytes.length);
+              }
+            } catch (JSONParseException ex) {
+              error = ex;
+            }
+            Asserts.isNotNull(error);
+            Asserts.isEqual(expected[i], error.getExpected());
+            Asserts.isEqual(positions[i][0], error.getOffset());
+            Asserts.isEqual(positions[i][1], error.getLine());
+            Asserts.isEqual(positions[i][2], error.getColumn());
+          }
+        }
+      }
+    });
+
+    tests.add("Writer", new Test() {
+      @Override
+      public void run(JSONFactory factory) throws Exception {
+
+        final JSON escaped = factory.object().setString("a", "x\\y\"z\n\tw");
+        Asserts.isEqual("{\"a\":\"x\\\\y\\\"z\\n\\tw\"}", new JSONWriter().write(escaped));
+        Asserts.isSameJSON(escaped, factory.parser().parse(new JSONWriter().write(escaped)));
+
+        final JSON nested = factory.object().setObject("b", factory.object().setString("c", "d"))
+            .setObject("e", factory.object());
+        final String pretty = new JSONWriter(2).write(factory.object().setObject("b", nested.getObject("b")));
+        Asserts.isEqual("{\n  \"b\": {\n    \"c\": \"d\"\n  }\n}", pretty);
+        Asserts.isEqual("{}", new JSONWriter(2).write(factory.object()));
+
+        //Large enough to fill the buffers several times, with characters of every UTF-8 length
+        final int[] codePoints = { 'a', 0xe9, 0x4e2d, 0x1f600 };
+        final JSON root = factory.object();
+        JSON obj = root;
+        for (int i = 0; i < 200; i++) {
+          final StringBuilder value = new StringBuilder();
+          for (int j = 0; j < i; j++) {
+            value.appendCodePoint(codePoints[j % codePoints.length]);
+          }
+          obj.setString("k" + i, value.toString()).setString("v" + i, "" + i);
+          final JSON child = factory.object();
+          obj.setObject("o" + i, child);
+          obj = child;
+        }
+
+        final JSONParser parser = factory.parser();
+        final MyJSONParser bytesParser = new MyJSONParser();
+        for (final JSONWriter writer : new JSONWriter[] { new JSONWriter(), new JSONWriter(4) }) {
+          final String text = writer.write(root);
+          Asserts.isSameJSON(root, parser.parse(text));
+
+          final StringWriter out = new StringWriter();
+          writer.write(root, out);
+          Asserts.isEqual(text, out.toString());
+
+          final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+          writer.write(root, stream);
+          Asserts.isTrue(Arrays.equals(text.getBytes("UTF-8"), stream.toByteArray()), "Expected UTF-8 output");
+
+          final ByteBuffer buffer = ByteBuffer.allocateDirect(stream.size() + 10);
+          buffer.put((byte) ' ');
+          writer.write(root, buffer);
+          Asserts.isEqual(stream.size() + 1, buffer.position());
+          buffer.flip();
+          Asserts.isSameJSON(root, bytesParser.parse(buffer));
+        }
+      }
+    });
+
+    tests.add("Escapes", new Test() {
+      @Override
+      public void run(JSONFactory factory) throws Exception {
+
+        final String doc = "{ \"k\\\"ey\":{ \"a\":\"x\\\\y\\n\\tz \\\"\u00e9\\\"\", \"plain\":\"p\" } }";
+        final String expected = "x\\y\n\tz \"\u00e9\"";
+        final byte[] bytes = doc.getBytes("UTF-8");
+        final JSONParser[] parsers = {
+            new MyJSONParser(), new MyJSONParser(MyJSONParser.DEFAULT_MAX_DEPTH, null, new KeyTable()),
+            new LazyJSONParser() };
+        for (final JSONParser parser : parsers) {
+          final JSON obj = parser.parse(doc).getObject("k\"ey");
+          Asserts.isEqual(expected, obj.getString("a"));
+          Asserts.isEqual("p", obj.getString("plain"));
+        }
+
+        final MyJSONParser parser = new MyJSONParser(MyJSONParser.DEFAULT_MAX_DEPTH, null, new KeyTable());
+        Asserts.isEqual(expected, parser.parse(bytes, 0, bytes.length).getObject("k\"ey").getString("a"));
+        Asserts.isEqual(expected, parser.parse(new StringReader(doc)).getObject("k\"ey").getString("a"));
+
+        //A tiny buffer makes escapes cross refills
+        final NDJSONReader reader = new NDJSONReader(new StringReader(doc + "\n" + doc), parser, 8);
+        Asserts.isEqual(expected, reader.next().getObject("k\"ey").getString("a"));
+        Asserts.isEqual(expected, reader.next().getObject("k\"ey").getString("a"));
+
+        //Escaped whitespace is kept when other whitespace is dropped
+        final JSONParser stripping = new MyJSONParser(MyJSONParser.DEFAULT_MAX_DEPTH, null, null, true);
+        Asserts.isEqual("a\tb", stripping.parse("{ \"k\":\"a \\tb\" }").getString("k"));
+      }
+    });
+
+    tests.add("Parse Cache", new Test() {
+      @Override
+      public void run(JSONFactory factory) throws Exception {
+
+        final CachingJSONParser cache = new CachingJSONParser(factory.parser(), 4);
+        final String text = "{ \"name\":{ \"first\":\"sam\", \"last\":\"doe\" } }";
+        final JSON first = cache.parse(text);
+        final JSON second = cache.parse(new String(text.toCharArray()));
+        Asserts.isTrue(first == second, "same text should return the cached object");
+        Asserts.isEqual(1L, cache.hits());
+        Asserts.isEqual(1L, cache.misses());
+        Asserts.isEqual("sam", first.getObject("name").getString("first"));
+
+        for (final JSON json : new JSON[] { first, first.getObject("name") }) {
+          boolean failed = false;
+          try {
+            json.setString("first", "alex");
+          } catch (UnsupportedOperationException ex) {
+            failed = true;
+          }
+          Asserts.isTrue(failed, "cached objects should be read only");
+        }
+        Asserts.isEqual("sam", cache.parse(text).getObject("name").getString("first"));
+
+        boolean failed = false;
+        try {
+          cache.parse("{ \"name\" }");
+        } catch (IOException ex) {
+          failed = true;
+        }
+        Asserts.isTrue(failed, "invalid text should still fail");
+
+        for (int i = 0; i < 20; i++) {
+          cache.parse("{ \"id\":\"" + i + "\" }");
+        }
+        Asserts.isTrue(cache.size() <= 4, "cache should not grow past its capacity");
+        Asserts.isTrue(cache.evictions() >= 16, "old documents should be evicted");
+        Asserts.isEqual("19", cache.parse("{ \"id\":\"19\" }").getString("id"));
+
+        //16 stripes of 40 characters each: at most three 12 character documents fit in a stripe
+        final CachingJSONParser small = new CachingJSONParser(factory.parser(), 100, 16 * 40);
+        for (int i = 0; i < 100; i++) {
+          small.parse("{ \"id\":\"" + (char) (0x100 + i) + "\" }");
+        }
+        Asserts.isTrue(small.size() <= 16 * 3, "cache should not hold more text than its budget");
+        Asserts.isEqual(small.size() * 12L, small.chars());
+        Asserts.isEqual(100L - small.size(), small.evictions());
+
+        final String large = "{ \"name\":\"" + new String(new char[40]).replace('\0', 'x') + "\" }";
+        Asserts.isEqual(small.parse(large).getString("name"), small.parse(large).getString("name"));
+        Asserts.isEqual(102L, small.misses());
+        small.clear();
+        Asserts.isEqual(0L, small.chars());
+      }
+    });
+
+    tests.add("Persistent Objects", new Test() {
+      @Override
+      public void run(JSONFactory factory) throws Exception {
+
+        final PersistentJSON.Builder builder = new PersistentJSON.Builder();
+        for (int i = 0; i < 100; i++) {
+          builder.setString("k" + i, "v" + i);
+          builder.setObject("k" + i, new PersistentJSON.Builder().setString("i", "" + i).build());
+        }
+        builder.setString("k50", "first").setString("k50", "changed");
+        final PersistentJSON obj = builder.build();
+
+        JSON updated = obj;
+        for (int i = 0; i < 100; i++) {
+          updated = updated.setString("k" + i, "u" + i);
+        }
+        updated = updated.setString("k100", "new");
+
+        for (int i = 0; i < 100; i++) {
+          Asserts.isEqual(i == 50 ? "changed" : "v" + i, obj.getString("k" + i));
+          Asserts.isEqual("u" + i, updated.getString("k" + i));
+          Asserts.isTrue(obj.getObject("k" + i) == updated.getObject("k" + i), "untouched objects should be shared");
+        }
+        Asserts.isEqual(null, obj.getString("k100"));
+        Asserts.isEqual("new", updated.getString("k100"));
+        Asserts.isTrue(obj.setString("k0", "v0") == obj, "setting the same value should return the same version");
+
+        final Collection<String> strings = new HashSet<>();
+        obj.getStrings(strings);
+        Asserts.isEqual(100, strings.size());
+
+        final String text = "{ \"name\":{\"first\":\"sam\", \"last\":\"doe\" }, \"id\":\"7\" }";
+        final JSON parsed = factory.parser().parse(text);
+        final PersistentJSON copy = PersistentJSON.copyOf(parsed);
+        Asserts.isSameJSON(parsed, copy);
+        parsed.getObject("name").setString("first", "alex");
+        Asserts.isEqual("sam", copy.getObject("name").getString("first"));
+
+        final JSONParser parser = new MyJSONParser(MyJSONParser.DEFAULT_MAX_DEPTH, new JSONFactory() {
+          @Override
+          public JSON object() {
+            return PersistentJSON.EMPTY;
+          }
+
+          @Override
+          public JSONParser parser() {
+            return new MyJSONParser(MyJSONParser.DEFAULT_MAX_DEPTH, this);
+          }
+        });
+        final JSON persistent = parser.parse(text);
+        Asserts.isTrue(persistent instanceof PersistentJSON, "Expected the factory to create the objects");
+        Asserts.isSameJSON(copy, persistent);
+        Asserts.isEqual(null, PersistentJSON.EMPTY.getString("id"));
+
+        final StringBuilder wide = new StringBuilder("{ \"id\":\"1\"");
+        for (int i = 0; i < 20000; i++) {
+          wide.append(", \"k").append(i).append("\":\"").append(i).append('"');
+        }
+        final JSON parsedWide = parser.parse(wide.append(", \"id\":\"2\", \"o\":{ \"id\":\"3\" } }").toString());
+        Asserts.isEqual("2", parsedWide.getString("id"));
+        Asserts.isEqual("19999", parsedWide.getString("k19999"));
+        Asserts.isEqual("3", parsedWide.getObject("o").getString("id"));
+      }
+    });
+
+    tests.add("Visitors", new Test() {
+      @Override
+      public void run(JSONFactory factory) throws Exception {
+
+        final String text = "{ \"id\":\"1\", \"id\":\"2\", \"name\":{ \"first\":\"sam\", \"last\":\"doe\" }, "
+            + "\"tags\":{ }, \"name\":{ \"first\":\"alex\" } }";
+        final JSON parsed = factory.parser().parse(text);
+        final JSON[] trees = { parsed, new LazyJSONParser().parse(text), PersistentJSON.copyOf(parsed),
+            ReadOnlyJSON.of(parsed) };
+        final JSON view = trees[3];
+        Asserts.isTrue(view.getObject("name") == view.getObject("name"), "views of nested objects should be reused");
+
+        //A view walked again from inside its own forEach still hands every value to the right visitor
+        final List<String> outer = new ArrayList<>();
+        final List<String> inner = new ArrayList<>();
+        view.forEach(new JSONVisitor() {
+          @Override
+          public void visitString(String name, String value) {
+            outer.add(name);
+            view.forEach(new JSONVisitor() {
+              @Override
+              public void visitString(String name, String value) {
+                inner.add(name);
+              }
+
+              @Override
+              public void visitObject(String name, JSON value) {
+                inner.add(name);
+              }
+            });
+          }
+
+          @Override
+          public void visitObject(String name, JSON value) {
+            outer.add(name);
+          }
+        });
+        Asserts.isEqual(3, outer.size());
+        Asserts.isEqual(outer, inner);
+
+        for (final JSON tree : trees) {
+          final List<String> visited = new ArrayList<>();
+          tree.forEach(new JSONVisitor() {
+            @Override
+            public void visitString(String name, String value) {
+              visited.add(name + "=" + value);
+            }
+
+            @Override
+            public void visitObject(String name, JSON value) {
+              visited.add(name + "={" + value.getString("first") + "}");
+            }
+          });
+          Asserts.isEqual("id=2", visited.get(0));
+          Asserts.isEqual(new HashSet<>(Arrays.asList("name={alex}", "tags={null}")),
+              new HashSet<>(visited.subList(1, visited.size())));
+          Asserts.isEqual(3, visited.size());
+
+          final StringBuilder events = new StringBuilder();
+          JSONWalker.walk(tree.getObject("name"), new JSONHandler() {
+            @Override
+            public void startObject(String key) {
+              events.append(key).append('{');
+            }
+
+            @Override
+            public void endObject() {
+              events.append('}');
+            }
+
+            @Override
+            public void stringValue(String key, CharSequence value) {
+              events.append(key).append('=').append(value);
+            }
+          });
+          Asserts.isEqual("null{first=alex}", events.toString());
+        }
+
+        boolean failed = false;
+        try {
+          JSONWalker.walk(parsed, new JSONHandler() {
+            @Override
+            public void startObject(String key) {
+            }
+
+            @Override
+            public void endObject() {
+            }
+
+            @Override
+            public void stringValue(String key, CharSequence value) throws IOException {
+              throw new IOException("stop");
+            }
+          });
+        } catch (IOException ex) {
+          failed = "stop".equals(ex.getMessage());
+        }
+        Asserts.isTrue(failed, "an IOException from the handler should stop the walk");
+      }
+    });
+
+    tests.add("Paths", new Test() {
+      @Override
+      public void run(JSONFactory factory) throws Exception {
+
+        final String text = "{ \"user\":{ \"id\":\"7\", \"name\":{ \"first\":\"sam\", \"last\":\"doe\" }, "
+            + "\"tags\":{ \"a\":\"b\" } }, \"other\":{ \"name\":{ \"first\":\"x\" } }, "
+            + "\"dup\":{ \"v\":\"1\" }, \"dup\":{ \"w\":\"2\" }, \"id\":\"1\", \"id\":\"2\" }";
+        final JSON parsed = factory.parser().parse(text);
+        final MyJSONParser parser = new MyJSONParser();
+
+        final String[][] cases = { { "user.name.first", "sam" }, { "user.id", "7" }, { "user.name", null },
+            { "user.missing.first", null }, { "dup.v", null }, { "dup.w", "2" }, { "id", "2" }, { "other", null } };
+        for (final String[] test : cases) {
+          final JSONPath path = JSONPath.compile(test[0]);
+          Asserts.isEqual(test[0], path.toString());
+          Asserts.isEqual(test[1], path.getString(parsed));
+          Asserts.isEqual(test[1], path.readString(parser.cursor(text)));
+          Asserts.isEqual(test[1], path.readString(parser.cursor(new StringReader(text))));
+        }
+        Asserts.isEqual("doe", JSONPath.compile("user.name").getObject(parsed).getString("last"));
+        Asserts.isEqual(null, JSONPath.compile("user.id").getObject(parsed));
+
+        for (final String bad : new String[] { "", "a..b", ".a", "a." }) {
+          boolean failed = false;
+          try {
+            JSONPath.compile(bad);
+          } catch (IllegalArgumentException ex) {
+            failed = true;
+          }
+          Asserts.isTrue(failed, "\"" + bad + "\" should not compile");
+        }
+
+        boolean failed = false;
+        try {
+          JSONPath.compile("user.id").readString(parser.cursor("{ \"user\":{ \"id\" } }"));
+        } catch (IOException ex) {
+          failed = true;
+        }
+        Asserts.isTrue(failed, "invalid objects on the path should fail");
+      }
+    });
+
+    tests.add("Binary Snapshots", new Test() {
+      @Override
+      public void run(JSONFactory factory) throws Exception {
+
+        final String text = "{ \"name\":{ \"first\":\"s\\\"am\", \"last\":\"d\u00f6e \u4e16\" }, \"id\":\"7\", "
+            + "\"tags\":{ }, \"nested\":{ \"name\":{ \"first\":\"x\" }, \"id\":\"\" } }";
+        final JSON parsed = factory.parser().parse(text);
+        final BinaryCodec codec = new BinaryCodec();
+
+        final ByteBuffer encoded = codec.encode(parsed);
+        final int size = encoded.remaining();
+        Asserts.isSameJSON(parsed, codec.decode(encoded));
+        Asserts.isEqual(size, encoded.position());
+        encoded.rewind();
+        final JSON opened = codec.open(encoded);
+        Asserts.isSameJSON(parsed, opened);
+        Asserts.isEqual(null, opened.getString("missing"));
+        Asserts.isEqual(null, opened.getObject("id"));
+        Asserts.isSameJSON(PersistentJSON.copyOf(parsed), new BinaryCodec(MyJSONParser.DEFAULT_MAX_DEPTH,
+            new JSONFactory() {
+              @Override
+              public JSON object() {
+                return PersistentJSON.EMPTY;
+              }
+
+              @Override
+              public JSONParser parser() {
+                return null;
+              }
+            }).decode(encoded.duplicate()));
+
+        //Writing streams through a buffer much smaller than this tree and must give the same bytes as encode
+        final JSON large = new MyJSON();
+        for (int i = 0; i < 2000; i++) {
+          large.setObject("o" + i, new MyJSON().setString("s", "value " + i + " \u00e9\u4e16\ud83d\ude00")
+              .setObject("e", new MyJSON()));
+        }
+        large.setString("odd", "\ud800x\udc00");
+        final ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+        codec.write(large, Channels.newChannel(streamed));
+        final ByteBuffer whole = codec.encode(large);
+        Asserts.isTrue(whole.remaining() > 64 * 1024, "snapshot should be larger than the write buffer");
+        Asserts.isTrue(whole.equals(ByteBuffer.wrap(streamed.toByteArray())), "write and encode should agree");
+        final JSON decodedLarge = codec.decode(whole);
+        Asserts.isSameJSON(large.setString("odd", "?x?"), decodedLarge);
+        Asserts.isEqual("value 7 \u00e9\u4e16\ud83d\ude00", decodedLarge.getObject("o7").getString("s"));
+
+        final Path file = Files.createTempFile("snapshot", ".bin");
+        try {
+          try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            codec.write(parsed, channel);
+          }
+          try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Asserts.isSameJSON(parsed, codec.read(channel));
+            final JSON mapped = codec.map(channel);
+            Asserts.isSameJSON(parsed, mapped);
+            mapped.getObject("name").setString("first", "alex");
+            Asserts.isEqual("alex", mapped.getObject("name").getString("first"));
+            mapped.getObject("nested").getObject("name").setString("middle", "j");
+            Asserts.isEqual("j", mapped.getObject("nested").getObject("name").getString("middle"));
+            mapped.setString("id", "8");
+            Asserts.isEqual("8", mapped.getString("id"));
+            Asserts.isEqual("alex", mapped.getObject("name").getString("first"));
+            Asserts.isEqual("s\"am", codec.map(channel).getObject("name").getString("first"));
+            Asserts.isEqual("x", mapped.getObject("nested").getObject("name").getString("first"));
+          }
+        } finally {
+          Files.delete(file);
+        }
+
+        for (int cut : new int[] { 0, 3, 12, size / 2, size - 1 }) {
+          boolean failed = false;
+          try {
+            codec.decode(ByteBuffer.wrap(Arrays.copyOf(encoded.array(), cut)));
+          } catch (IOException ex) {
+            failed = true;
+          }
+          Asserts.isTrue(failed, "a snapshot cut to " + cut + " bytes should fail");
+        }
+        final ByteBuffer empty = codec.encode(new MyJSON());
+        Asserts.isEqual(14, empty.remaining());
+        for (int damage : new int[] { 0, 7, 8, 12, 13 }) {
+          final byte[] damaged = Arrays.copyOf(empty.array(), empty.remaining());
+          damaged[damage] = 9;
+          boolean failed = false;
+          try {
+            codec.open(ByteBuffer.wrap(damaged));
+          } catch (IOException ex) {
+            failed = true;
+          }
+          Asserts.isTrue(failed, "a snapshot damaged at byte " + damage + " should fail");
+        }
+      }
+    });
+
+    final boolean passed = tests.run(new JSONFactory(){
       @Override
       public JSONParser parser() {
         return new MyJSONParser();
@@ -77,5 +1185,10 @@ final class TestMain {
         return new MyJSON();
       }
     });
+
+    //Let build tools see that a test failed
+    if (!passed) {
+      System.exit(1);
+    }
   }
 }
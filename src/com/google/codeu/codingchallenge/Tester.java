@@ -14,25 +14,196 @@
 
 package com.google.codeu.codingchallenge;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.HashMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * purpose of this class is to run a set of tests side by side and report, for each, whether it passed and how long it
+ * took. A test that runs longer than the timeout fails, so a parser that has become pathologically slow shows up as a
+ * failure instead of a build that never ends. All tests share the one factory given to run, so it has to be safe to
+ * use from several threads; each test creates its own parsers and objects from it.
+ * Results are printed either in the order the tests were added, which is the same on every run, or as soon as each
+ * test finishes.
+ */
 final class Tester {
+  public static final long DEFAULT_TIMEOUT_MILLIS = 60000;
 
-  private final Map<String, Test> tests = new HashMap<>();
+  private final Map<String, Test> tests = new LinkedHashMap<>();
+
+  //Runs the tests, or null to use a pool with a thread for each processor during every call to run
+  private final Executor executor;
+  private final long timeoutMillis;
+  private final boolean ordered;
+
+  /**
+   * Creates a tester that runs the tests on a thread for each processor, fails any test that takes longer than
+   * DEFAULT_TIMEOUT_MILLIS and prints results in the order the tests were added
+   */
+  public Tester() {
+    this(null, DEFAULT_TIMEOUT_MILLIS, true);
+  }
+
+  /**
+   * Creates a tester that runs the tests on the given executor
+   * @param executor Executor or null to use a thread for each processor
+   * @param timeoutMillis long the longest a single test may run
+   * @param ordered boolean true to print results in the order the tests were added, false to print them as the tests
+   * finish
+   */
+  public Tester(Executor executor, long timeoutMillis, boolean ordered) {
+    if (timeoutMillis < 1) {
+      throw new IllegalArgumentException("timeoutMillis must be at least 1");
+    }
+    this.executor = executor;
+    this.timeoutMillis = timeoutMillis;
+    this.ordered = ordered;
+  }
 
   public void add(String name, Test test) {
     tests.put(name, test);
   }
 
-  public void run(JSONFactory factory) {
-    for (final Map.Entry<String, Test> test : tests.entrySet()) {
+  /**
+   * purpose of this method is to run every test with the given factory and print a line for each
+   * @param factory JSONFactory
+   * @return boolean true if every test passed
+   */
+  public boolean run(JSONFactory factory) {
+    ExecutorService pool = null;
+    Executor runner = executor;
+    if (runner == null) {
+      pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), DAEMONS);
+      runner = pool;
+    }
+    ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(DAEMONS);
+
+    try {
+      BlockingQueue<Run> finished = new LinkedBlockingQueue<>();
+      List<Run> runs = new ArrayList<>();
+      for (final Map.Entry<String, Test> test : tests.entrySet()) {
+        Run run = new Run(test.getKey(), test.getValue(), factory, timer, finished);
+        runs.add(run);
+        runner.execute(run);
+      }
+
+      boolean passed = true;
+      for (int i = 0; i < runs.size(); i++) {
+        Run run = ordered ? runs.get(i) : finished.take();
+        passed = run.report() && passed;
+      }
+      return passed;
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      return false;
+    } finally {
+      timer.shutdownNow();
+      if (pool != null) {
+        pool.shutdownNow();
+      }
+    }
+  }
+
+  //Threads that do not keep the JVM alive if a test never returns
+  private static final ThreadFactory DAEMONS = new ThreadFactory() {
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "tester");
+      thread.setDaemon(true);
+      return thread;
+    }
+  };
+
+  /**
+   * purpose of this class is to run a single test, time it and cancel it once it has run for too long
+   */
+  private final class Run extends FutureTask<Void> {
+    private final String name;
+    private final ScheduledExecutorService timer;
+    private final BlockingQueue<Run> finished;
+
+    //When the test started and finished, by System.nanoTime
+    private volatile long start;
+    private volatile long end;
+    //Released once end is set, which is after get stops blocking
+    private final CountDownLatch over = new CountDownLatch(1);
+
+    Run(String name, final Test test, final JSONFactory factory, ScheduledExecutorService timer,
+        BlockingQueue<Run> finished) {
+      super(new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          test.run(factory);
+          return null;
+        }
+      });
+      this.name = name;
+      this.timer = timer;
+      this.finished = finished;
+    }
+
+    @Override
+    public void run() {
+      start = System.nanoTime();
+      ScheduledFuture<?> timeout = timer.schedule(new Runnable() {
+        @Override
+        public void run() {
+          cancel(true);
+        }
+      }, timeoutMillis, TimeUnit.MILLISECONDS);
+      try {
+        super.run();
+      } finally {
+        timeout.cancel(false);
+      }
+    }
+
+    @Override
+    protected void done() {
+      end = System.nanoTime();
+      over.countDown();
+      finished.add(this);
+    }
+
+    /**
+     * purpose of this method is to wait for the test to finish and print how it went
+     * @return boolean true if the test passed
+     * @throws InterruptedException if interrupted while waiting
+     */
+    boolean report() throws InterruptedException {
+      over.await();
       try {
-        test.getValue().run(factory);
-        System.out.format("PASS : Test %s\n", test.getKey());
-      } catch (Exception ex) {
-        System.out.format("FAIL : Test %s (%s)\n", test.getKey(), ex.toString());
+        get();
+        System.out.format("PASS : Test %s (%d ms)\n", name, millis());
+        return true;
+      } catch (CancellationException ex) {
+        System.out.format("FAIL : Test %s (timed out after %d ms)\n", name, millis());
+      } catch (ExecutionException ex) {
+        System.out.format("FAIL : Test %s (%s, %d ms)\n", name, ex.getCause().toString(), millis());
       }
+      return false;
+    }
+
+    /**
+     * @return long how long the test ran, in milliseconds
+     */
+    private long millis() {
+      return TimeUnit.NANOSECONDS.toMillis(end - start);
     }
   }
 }
@@ -0,0 +1,91 @@
+// Copyright 2017 Google Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//    http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.codeu.codingchallenge;
+
+/**
+ * purpose of this class is to show a range of characters, held either in some other CharSequence or in a char array,
+ * as a CharSequence without copying them. Inputs keep one view and point it at each string they read, so a handler
+ * that only looks at or compares a value never causes a String to be created. A view is only valid until the input
+ * reads the next string; toString() makes a copy that can be kept.
+ */
+final class TextView implements CharSequence {
+  private CharSequence sequence;
+  private char[] chars;
+  private int start;
+  private int end;
+
+  /**
+   * purpose of this method is to point the view at characters start up to end of a sequence
+   * @param sequence CharSequence
+   * @param start int
+   * @param end int
+   * @return TextView this
+   */
+  TextView set(CharSequence sequence, int start, int end) {
+    this.sequence = sequence;
+    this.chars = null;
+    this.start = start;
+    this.end = end;
+    return this;
+  }
+
+  /**
+   * purpose of this method is to point the view at characters start up to end of an array
+   * @param chars char[]
+   * @param start int
+   * @param end int
+   * @return TextView this
+   */
+  TextView set(char[] chars, int start, int end) {
+    this.sequence = null;
+    this.chars = chars;
+    this.start = start;
+    this.end = end;
+    return this;
+  }
+
+  @Override
+  public int length() {
+    return end - start;
+  }
+
+  @Override
+  public char charAt(int index) {
+    if (index < 0 || index >= end - start) {
+      throw new IndexOutOfBoundsException(String.valueOf(index));
+    }
+    return chars != null ? chars[start + index] : sequence.charAt(start + index);
+  }
+
+  @Override
+  public CharSequence subSequence(int from, int to) {
+    if (from < 0 || from > to || to > end - start) {
+      throw new IndexOutOfBoundsException();
+    }
+    return toString().substring(from, to);
+  }
+
+  @Override
+  public String toString() {
+    if (chars != null) {
+      return new String(chars, start, end - start);
+    }
+    if (sequence instanceof String) {
+      return ((String) sequence).substring(start, end);
+    }
+    return sequence.subSequence(start, end).toString();
+  }
+}
@@ -0,0 +1,462 @@
+// Copyright 2017 Google Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//    http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.codeu.codingchallenge;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * purpose of this class is to read a JSON-lite document straight from UTF-8 encoded bytes. Every structural character
+ * of JSON-lite is ASCII and in UTF-8 an ASCII byte is never part of a longer character, so braces, colons, commas,
+ * quotes and backslashes are found by looking at single bytes. Only the bytes between the quotes of a key or value are
+ * ever decoded, straight into the resulting String, or into a reusable char array for readText and for the few strings
+ * whose escapes have to be decoded as well. ASCII keys without escapes are looked up in a KeyTable without being
+ * decoded at all.
+ * A file is read through memory mapped windows of at most windowSize bytes, one after the other, so files larger than
+ * a single ByteBuffer can address are read the same way. The bytes of a string that crosses from one window into the
+ * next are collected in the scratch array before being decoded.
+ */
+final class Utf8Input extends JSONInput {
+  static final int DEFAULT_WINDOW_SIZE = 1 << 30;
+  private static final int INITIAL_SCRATCH_SIZE = 256;
+
+  //The bytes being parsed. For a heap buffer array gives direct access to the backing array, for a direct or mapped
+  //buffer array is null and bytes are read with absolute gets
+  private ByteBuffer buffer;
+  private byte[] array;
+
+  //Index of the next byte to look at and the index after the last byte of the current window
+  private int pos;
+  private int limit;
+
+  //Index in the array or buffer of the first byte of the input and the offset of the last token from there
+  private int base;
+  private long tokenStart;
+
+  //The file being mapped, where in the file the current window starts and how large the file and each window are
+  private FileChannel channel;
+  private long windowStart;
+  private long fileSize;
+  private int windowSize;
+
+  //Used to decode strings held in a direct buffer or split across windows
+  private byte[] scratch = new byte[INITIAL_SCRATCH_SIZE];
+  private int scratchLength;
+
+  //Where in array the last string read lies, if it is there, whether it is all ASCII and whether it contains escapes
+  //or may contain whitespace that has to be dropped
+  private int textStart;
+  private int textEnd;
+  private boolean textAscii;
+  private boolean textEncoded;
+
+  //Characters of the last string decoded into chars and the view of them readText returns
+  private char[] chars = new char[INITIAL_SCRATCH_SIZE];
+  private final TextView view = new TextView();
+
+  /**
+   * purpose of this method is to start reading length bytes of the given array starting at offset
+   * @param in byte[]
+   * @param offset int
+   * @param length int
+   * @return Utf8Input this
+   */
+  Utf8Input reset(byte[] in, int offset, int length) {
+    if (offset < 0 || length < 0 || offset > in.length - length) {
+      throw new IndexOutOfBoundsException();
+    }
+    clear();
+    array = in;
+    pos = offset;
+    base = offset;
+    limit = offset + length;
+    return this;
+  }
+
+  /**
+   * purpose of this method is to start reading the bytes between the position and the limit of the given buffer. The
+   * position of the buffer is left where it is.
+   * @param in ByteBuffer
+   * @return Utf8Input this
+   */
+  Utf8Input reset(ByteBuffer in) {
+    if (in.hasArray()) {
+      return reset(in.array(), in.arrayOffset() + in.position(), in.remaining());
+    }
+    clear();
+    buffer = in;
+    pos = in.position();
+    base = pos;
+    limit = in.limit();
+    return this;
+  }
+
+  /**
+   * purpose of this method is to start reading the whole of the given file through read only memory mapped windows
+   * @param channel FileChannel
+   * @param windowSize int the largest number of bytes mapped at once
+   * @return Utf8Input this
+   * @throws IOException if the file cannot be mapped
+   */
+  Utf8Input reset(FileChannel channel, int windowSize) throws IOException {
+    if (windowSize < 1) {
+      throw new IllegalArgumentException("windowSize must be at least 1");
+    }
+    clear();
+    this.channel = channel;
+    this.windowSize = windowSize;
+    fileSize = channel.size();
+    nextWindow();
+    return this;
+  }
+
+  /**
+   * purpose of this method is to let go of the bytes that were being read
+   */
+  void clear() {
+    buffer = null;
+    array = null;
+    channel = null;
+    pos = 0;
+    limit = 0;
+    base = 0;
+    tokenStart = 0;
+    windowStart = 0;
+    fileSize = 0;
+  }
+
+  @Override
+  int nextToken() throws IOException {
+    while (pos < limit || nextWindow()) {
+      int start = pos;
+      long startWindow = windowStart;
+      int b = get(pos++);
+      if (b < 0) {
+        //A character outside of ASCII can only be valid here if it is whitespace
+        int c = decodeCharacter(b);
+        if (!Character.isWhitespace(c)) {
+          //The character may have crossed into the next window
+          tokenStart = startWindow + start - base;
+          return c;
+        }
+      }
+      else if (!isWhitespace(b)) {
+        tokenStart = startWindow + start - base;
+        return b;
+      }
+    }
+
+    tokenStart = windowStart + pos - base;
+    return -1;
+  }
+
+  @Override
+  long tokenOffset() {
+    return tokenStart;
+  }
+
+  @Override
+  int unitAt(long offset) {
+    //Of a file only the current window is known
+    long index = offset + base - windowStart;
+    return index >= 0 && index < limit ? get((int) index) & 0xFF : -1;
+  }
+
+  @Override
+  String readString() throws IOException {
+    return readString(scanString());
+  }
+
+  /**
+   * helper method for readString and readKey to decode the string that scanString has just read
+   * @param inArray boolean what scanString returned
+   * @return String
+   */
+  private String readString(boolean inArray) {
+    if (textEncoded) {
+      int length = decodeText(inArray);
+      return new String(chars, 0, length);
+    }
+    return inArray ? decode(array, textStart, textEnd) : decode(scratch, 0, scratchLength);
+  }
+
+  @Override
+  CharSequence readText() throws IOException {
+    //Decoding may replace chars with a larger array, so it has to happen before chars is read
+    int length = decodeText(scanString());
+    return view.set(chars, 0, length);
+  }
+
+  @Override
+  String readKey(KeyTable table) throws IOException {
+    boolean inArray = scanString();
+    if (textEncoded) {
+      int length = decodeText(inArray);
+      return table.intern(chars, 0, length);
+    }
+    if (!textAscii) {
+      return table.intern(readString(inArray));
+    }
+    //ASCII can be looked up byte for byte
+    return inArray ? table.intern(array, textStart, textEnd) : table.intern(scratch, 0, scratchLength);
+  }
+
+  /**
+   * helper method to decode the string that scanString has just read into chars, escapes included
+   * @param inArray boolean what scanString returned
+   * @return int the number of characters
+   */
+  private int decodeText(boolean inArray) {
+    int length = inArray ? decodeChars(array, textStart, textEnd) : decodeChars(scratch, 0, scratchLength);
+    return textEncoded ? unescape(chars, 0, length, dropWhitespace) : length;
+  }
+
+  @Override
+  void skipString() throws IOException {
+    boolean escaped = false;
+    while (pos < limit || nextWindow()) {
+      int b = get(pos++);
+      if (escaped) {
+        if (!validEscapedCharacter(b)) {
+          throw error(EXPECTED_STRING);
+        }
+        escaped = false;
+      }
+      else if (b == '\\') {
+        escaped = true;
+      }
+      else if (b == '"') {
+        return;
+      }
+    }
+
+    throw error(EXPECTED_STRING);
+  }
+
+  /**
+   * helper method for readString, readText and readKey. Reads a string and leaves its bytes either in array from
+   * textStart up to textEnd or, if the bytes are not in a heap array or the string crossed into another window, in
+   * scratch. textAscii is set if every byte is an ASCII character, and textEncoded if the string contains escapes or
+   * whitespace is being dropped and the string may contain some.
+   * @return boolean true if the string is in array, false if it is in scratch
+   * @throws IOException if the string is not terminated or contains an invalid escape
+   */
+  private boolean scanString() throws IOException {
+    int start = pos;
+    boolean escaped = false;
+    boolean ascii = true;
+    boolean space = false;
+    boolean escapes = false;
+    scratchLength = 0;
+    while (true) {
+      if (pos == limit) {
+        //Keep what has been read so far before moving on to the next window
+        appendToScratch(start, pos);
+        if (!nextWindow()) {
+          throw error(EXPECTED_STRING);
+        }
+        start = 0;
+      }
+
+      int b = get(pos++);
+      if (escaped) {
+        if (!validEscapedCharacter(b)) {
+          throw error(EXPECTED_STRING);
+        }
+        escaped = false;
+      }
+      else if (b == '\\') {
+        escaped = true;
+        escapes = true;
+      }
+      else if (b == '"') {
+        textAscii = ascii;
+        textEncoded = escapes || (dropWhitespace && (space || !ascii));
+        if (scratchLength == 0 && array != null) {
+          textStart = start;
+          textEnd = pos - 1;
+          return true;
+        }
+        appendToScratch(start, pos - 1);
+        return false;
+      }
+      else if (b <= ' ') {
+        //Negative bytes are part of a character outside of ASCII, which could be whitespace
+        if (b < 0) {
+          ascii = false;
+        }
+        else {
+          space = true;
+        }
+      }
+    }
+  }
+
+  /**
+   * helper method to map the next window of the file once every byte of the current one has been used
+   * @return boolean false if there is no file or no more of it
+   * @throws IOException if the window cannot be mapped
+   */
+  private boolean nextWindow() throws IOException {
+    if (channel == null || windowStart + limit >= fileSize) {
+      return false;
+    }
+    windowStart = windowStart + limit;
+    buffer = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, Math.min(windowSize, fileSize - windowStart));
+    pos = 0;
+    limit = buffer.limit();
+    return true;
+  }
+
+  /**
+   * helper method to get the byte at the given index of the current window
+   * @param index int
+   * @return int
+   */
+  private int get(int index) {
+    return array != null ? array[index] : buffer.get(index);
+  }
+
+  /**
+   * helper method to turn bytes from start up to end of an array into a String
+   * @param bytes byte[]
+   * @param start int
+   * @param end int
+   * @return String
+   */
+  private static String decode(byte[] bytes, int start, int end) {
+    return new String(bytes, start, end - start, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * helper method to decode bytes from start up to end of an array into the reusable chars array. UTF-8 never needs
+   * more chars than bytes. Malformed bytes decode to U+FFFD.
+   * @param bytes byte[]
+   * @param start int
+   * @param end int
+   * @return int the number of chars
+   */
+  private int decodeChars(byte[] bytes, int start, int end) {
+    if (chars.length < end - start) {
+      chars = new char[Math.max(end - start, chars.length * 2)];
+    }
+    int length = 0;
+    int i = start;
+    while (i < end) {
+      int b = bytes[i++];
+      if (b >= 0) {
+        chars[length++] = (char) b;
+        continue;
+      }
+
+      int count;
+      int c;
+      if ((b & 0xE0) == 0xC0) {
+        count = 1;
+        c = b & 0x1F;
+      }
+      else if ((b & 0xF0) == 0xE0) {
+        count = 2;
+        c = b & 0x0F;
+      }
+      else if ((b & 0xF8) == 0xF0) {
+        count = 3;
+        c = b & 0x07;
+      }
+      else {
+        chars[length++] = '\uFFFD';
+        continue;
+      }
+      while (count > 0 && i < end && (bytes[i] & 0xC0) == 0x80) {
+        c = (c << 6) | (bytes[i++] & 0x3F);
+        count = count - 1;
+      }
+
+      if (count > 0) {
+        chars[length++] = '\uFFFD';
+      }
+      else if (c >= Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+        chars[length++] = Character.highSurrogate(c);
+        chars[length++] = Character.lowSurrogate(c);
+      }
+      else {
+        chars[length++] = (char) c;
+      }
+    }
+
+    return length;
+  }
+
+  /**
+   * helper method to copy the bytes from start up to end onto the end of the scratch array, growing it if needed
+   * @param start int
+   * @param end int
+   */
+  private void appendToScratch(int start, int end) {
+    int length = end - start;
+    if (scratch.length - scratchLength < length) {
+      scratch = Arrays.copyOf(scratch, Math.max(scratchLength + length, scratch.length * 2));
+    }
+    if (array != null) {
+      System.arraycopy(array, start, scratch, scratchLength, length);
+    }
+    else {
+      for (int i = start; i < end; i++) {
+        scratch[scratchLength + i - start] = buffer.get(i);
+      }
+    }
+    scratchLength = scratchLength + length;
+  }
+
+  /**
+   * helper method to decode the character that starts with the given non ASCII byte, which has just been read. The
+   * bytes that continue the character are consumed. Malformed bytes decode to a character that is not whitespace.
+   * @param lead int
+   * @return int the code point
+   * @throws IOException if the next window cannot be mapped
+   */
+  private int decodeCharacter(int lead) throws IOException {
+    int count;
+    int c;
+    if ((lead & 0xE0) == 0xC0) {
+      count = 1;
+      c = lead & 0x1F;
+    }
+    else if ((lead & 0xF0) == 0xE0) {
+      count = 2;
+      c = lead & 0x0F;
+    }
+    else if ((lead & 0xF8) == 0xF0) {
+      count = 3;
+      c = lead & 0x07;
+    }
+    else {
+      return 0xFFFD;
+    }
+
+    for (int i = 0; i < count; i++) {
+      if ((pos == limit && !nextWindow()) || (get(pos) & 0xC0) != 0x80) {
+        return 0xFFFD;
+      }
+      c = (c << 6) | (get(pos++) & 0x3F);
+    }
+
+    return c;
+  }
+}
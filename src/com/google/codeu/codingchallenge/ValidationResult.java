@@ -0,0 +1,69 @@
+// Copyright 2017 Google Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//    http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.codeu.codingchallenge;
+
+/**
+ * purpose of this class is to hold the outcome of checking a document without parsing it: either that it is a valid
+ * JSON-lite object or where the first problem is and what was expected there. A valid document always gets the same
+ * instance, so checking one creates nothing.
+ */
+final class ValidationResult {
+  static final ValidationResult VALID = new ValidationResult(-1, null);
+
+  private final long offset;
+  private final String reason;
+
+  private ValidationResult(long offset, String reason) {
+    this.offset = offset;
+    this.reason = reason;
+  }
+
+  /**
+   * @param offset long
+   * @param reason String
+   * @return ValidationResult for a document that is not valid
+   */
+  static ValidationResult failure(long offset, String reason) {
+    return new ValidationResult(offset, reason);
+  }
+
+  /**
+   * @return boolean true if the document is a valid JSON-lite object
+   */
+  public boolean isValid() {
+    return reason == null;
+  }
+
+  /**
+   * @return long where the first problem is, counted in characters, or bytes for encoded input, from the start of the
+   * document, or -1 if the document is valid
+   */
+  public long getOffset() {
+    return offset;
+  }
+
+  /**
+   * @return String what is wrong at the offset, or null if the document is valid
+   */
+  public String getReason() {
+    return reason;
+  }
+
+  @Override
+  public String toString() {
+    return reason == null ? "valid" : reason + " at offset " + offset;
+  }
+}